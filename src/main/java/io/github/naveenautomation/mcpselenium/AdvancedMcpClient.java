@@ -1,27 +1,34 @@
 package io.github.naveenautomation.mcpselenium;
 
 import java.awt.BorderLayout;
+import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.GridLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * 
@@ -31,12 +38,14 @@ import javax.swing.SwingUtilities;
 
 public class AdvancedMcpClient extends JFrame {
 	private static final String JAR_PATH = "target/selenium-mcp-0.1.0-jar-with-dependencies.jar"; // Update this path
-	private Process serverProcess;
-	private BufferedWriter serverInput;
-	private BufferedReader serverOutput;
+	private static final int LOG_MAX_ENTRIES = 5000;
+	private static final long LOG_MAX_RETAINED_CHARS = 32L * 1024 * 1024;
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private McpServerProcess server;
 	private final AtomicInteger callIdCounter = new AtomicInteger(1);
 
-	private final JTextArea logArea;
+	private final ClientLogModel logModel = new ClientLogModel(LOG_MAX_ENTRIES, LOG_MAX_RETAINED_CHARS);
+	private final JList<ClientLogModel.Entry> logList;
 	private final JTextField commandField;
 	private final JComboBox<String> commandSelector;
 
@@ -57,7 +66,7 @@ public class AdvancedMcpClient extends JFrame {
 		JPanel mainPanel = new JPanel(new BorderLayout());
 
 		// Command selector
-		String[] commands = { "start_browser", "navigate", "find_element", "click_element", "send_keys",
+		String[] commands = { "start_browser", "navigate", "find_element", "click_element", "send_keys", "fill_form",
 				"get_element_text", "hover", "drag_and_drop", "double_click", "right_click", "press_key", "upload_file",
 				"take_screenshot", "close_session" };
 		commandSelector = new JComboBox<>(commands);
@@ -97,15 +106,51 @@ public class AdvancedMcpClient extends JFrame {
 		JButton screenshotButton = new JButton("Screenshot");
 		screenshotButton.addActionListener(e -> takeScreenshot());
 
+		JButton clearLogButton = new JButton("Clear Log");
+		clearLogButton.addActionListener(e -> logModel.clear());
+
 		quickActionPanel.add(chromeButton);
 		quickActionPanel.add(navigateButton);
 		quickActionPanel.add(screenshotButton);
 		quickActionPanel.add(closeButton);
+		quickActionPanel.add(clearLogButton);
 
-		// Log area
-		logArea = new JTextArea();
-		logArea.setEditable(false);
-		JScrollPane scrollPane = new JScrollPane(logArea);
+		// Log list; fixed cell sizes let JList lay out and paint only the visible rows
+		logList = new JList<>(logModel);
+		logList.setFixedCellHeight(logList.getFontMetrics(logList.getFont()).getHeight() + 2);
+		logList.setFixedCellWidth(100);
+		logList.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) {
+					int index = logList.locationToIndex(e.getPoint());
+					if (index >= 0) {
+						showEntry(logModel.getElementAt(index));
+					}
+				}
+			}
+		});
+		JScrollPane scrollPane = new JScrollPane(logList);
+
+		// Follow new entries while the view is scrolled to the bottom
+		JScrollBar scrollBar = scrollPane.getVerticalScrollBar();
+		logModel.addListDataListener(new ListDataListener() {
+			@Override
+			public void intervalAdded(ListDataEvent e) {
+				int slack = logList.getFixedCellHeight() * 2;
+				if (scrollBar.getValue() + scrollBar.getVisibleAmount() >= scrollBar.getMaximum() - slack) {
+					SwingUtilities.invokeLater(() -> logList.ensureIndexIsVisible(e.getIndex1()));
+				}
+			}
+
+			@Override
+			public void intervalRemoved(ListDataEvent e) {
+			}
+
+			@Override
+			public void contentsChanged(ListDataEvent e) {
+			}
+		});
 
 		// Add components to main panel
 		mainPanel.add(commandPanel, BorderLayout.NORTH);
@@ -117,55 +162,41 @@ public class AdvancedMcpClient extends JFrame {
 	}
 
 	private void log(String message) {
-		SwingUtilities.invokeLater(() -> {
-			logArea.append(message + "\n");
-			logArea.setCaretPosition(logArea.getDocument().getLength());
-		});
+		logModel.info(message);
+	}
+
+	private void showEntry(ClientLogModel.Entry entry) {
+		String text = entry.fullText;
+		if (text == null) {
+			JOptionPane.showMessageDialog(this, "The full payload of this entry was discarded to bound memory use.",
+					"Log Entry", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		JTextArea textArea = new JTextArea(text);
+		textArea.setEditable(false);
+		textArea.setLineWrap(true);
+		JScrollPane scrollPane = new JScrollPane(textArea);
+		scrollPane.setPreferredSize(new Dimension(700, 450));
+		JOptionPane.showMessageDialog(this, scrollPane, entry.label != null ? entry.label : "Log Entry",
+				JOptionPane.PLAIN_MESSAGE);
 	}
 
 	private void startServer() {
 		try {
-			ProcessBuilder processBuilder = new ProcessBuilder("java", "-jar", JAR_PATH);
-			serverProcess = processBuilder.start();
-
-			serverInput = new BufferedWriter(new OutputStreamWriter(serverProcess.getOutputStream()));
-			serverOutput = new BufferedReader(new InputStreamReader(serverProcess.getInputStream()));
-
-			// Start a thread to read server responses
-			new Thread(() -> {
-				try {
-					String response;
-					// Read the initial server info
-					response = serverOutput.readLine();
-					log("Server info: " + response);
-
-					// Continue reading responses
-					while ((response = serverOutput.readLine()) != null) {
-						log("Response: " + response);
-					}
-				} catch (IOException e) {
-					if (serverProcess == null || !serverProcess.isAlive()) {
-						log("Server process has terminated");
-					} else {
-						log("Error reading from server: " + e.getMessage());
-						e.printStackTrace();
-					}
+			AtomicBoolean serverInfoRead = new AtomicBoolean();
+			server = McpServerProcess.start(McpServerProcess.jarCommand(JAR_PATH), line -> {
+				// The first line is the server info, the rest are responses
+				if (serverInfoRead.compareAndSet(false, true)) {
+					log("Server info: " + line);
+				} else {
+					logModel.response(line);
 				}
-			}).start();
-
-			// Start a thread to handle server errors
-			new Thread(() -> {
-				try (BufferedReader errorReader = new BufferedReader(
-						new InputStreamReader(serverProcess.getErrorStream()))) {
-					String line;
-					while ((line = errorReader.readLine()) != null) {
-						log("Server Error: " + line);
-					}
-				} catch (IOException e) {
-					log("Error reading server errors: " + e.getMessage());
-					e.printStackTrace();
+			}, line -> log("Server Error: " + line), () -> {
+				if (server == null || !server.isAlive()) {
+					log("Server process has terminated");
+					logModel.abandonOutstanding();
 				}
-			}).start();
+			});
 
 			log("Server started");
 
@@ -177,13 +208,13 @@ public class AdvancedMcpClient extends JFrame {
 
 	private void stopServer() {
 		try {
-			if (serverInput != null)
-				serverInput.close();
-			if (serverOutput != null)
-				serverOutput.close();
-			if (serverProcess != null && serverProcess.isAlive()) {
-				serverProcess.destroy();
-				log("Server stopped");
+			if (server != null) {
+				boolean wasAlive = server.isAlive();
+				server.stop();
+				logModel.abandonOutstanding();
+				if (wasAlive) {
+					log("Server stopped");
+				}
 			}
 		} catch (IOException e) {
 			log("Error stopping server: " + e.getMessage());
@@ -215,22 +246,29 @@ public class AdvancedMcpClient extends JFrame {
 	}
 
 	private void sendRawCommand(String jsonCommand) {
-		if (serverInput == null) {
+		if (server == null) {
 			log("Server not started. Cannot send command.");
 			return;
 		}
 
 		try {
-			log("Sending: " + jsonCommand);
-			serverInput.write(jsonCommand);
-			serverInput.newLine();
-			serverInput.flush();
+			logModel.request(callId(jsonCommand), jsonCommand);
+			server.send(jsonCommand);
 		} catch (IOException e) {
 			log("Error sending command: " + e.getMessage());
 			e.printStackTrace();
 		}
 	}
 
+	private static String callId(String jsonCommand) {
+		try {
+			JsonNode id = objectMapper.readTree(jsonCommand).get("tool_call_id");
+			return id != null ? id.asText() : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	// Quick action methods
 
 	private void startChrome() {
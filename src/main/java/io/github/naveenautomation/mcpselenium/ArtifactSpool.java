@@ -0,0 +1,404 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed spool for large tool outputs (screenshots, long page text). Each artifact is written once to a
+ * file named after its SHA-256 and handed out as a short {@code artifact://} URI, which clients read through
+ * {@code resource_request} with an optional byte range. Writing the same bytes again returns the same URI.
+ *
+ * Each server keeps its spool in a {@code run-*} directory of its own under {@code mcp.artifacts.dir} (default
+ * {@code <tmpdir>/mcp-selenium-artifacts}), held with a file lock while the server runs, so servers sharing the parent
+ * never delete each other's files. A starting server takes over a directory whose lock is free, which keeps artifacts
+ * across restarts. The spool is capped at {@code mcp.artifacts.maxBytes} (default 512 MB); the least recently written
+ * or read artifacts are deleted first.
+ */
+final class ArtifactSpool {
+	static final String URI_PREFIX = "artifact://";
+	static final String TEXT_MIME_TYPE = "text/plain; charset=utf-8";
+	// 128 bits of the hash keep URIs short while collisions stay out of reach
+	private static final int NAME_HEX_CHARS = 32;
+	private static final String LOCK_FILE = ".lock";
+	// Held until the process exits; the OS releases it if the server dies
+	private static FileLock runLock;
+
+	private final Path root;
+	private final long maxBytes;
+	private final int inlineThreshold;
+	// Access-ordered: iteration starts at the least recently used artifact
+	private final LinkedHashMap<String, Artifact> index = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes;
+
+	ArtifactSpool(Path root, long maxBytes, int inlineThreshold) {
+		this.root = root;
+		this.maxBytes = maxBytes;
+		this.inlineThreshold = inlineThreshold;
+	}
+
+	static ArtifactSpool fromSystemProperties() {
+		String dir = System.getProperty("mcp.artifacts.dir",
+				Paths.get(System.getProperty("java.io.tmpdir"), "mcp-selenium-artifacts").toString());
+		long maxBytes = Long.getLong("mcp.artifacts.maxBytes", 512L * 1024 * 1024);
+		int inlineThreshold = Integer.getInteger("mcp.artifacts.inlineThreshold", 64 * 1024);
+		Path parent = Paths.get(dir);
+		Path root;
+		try {
+			root = claimRunDirectory(parent);
+		} catch (IOException e) {
+			root = parent.resolve("run-" + ProcessHandle.current().pid());
+			System.err.println("Could not lock an artifact directory under " + parent + ", using " + root + ": "
+					+ e.getMessage());
+		}
+		ArtifactSpool spool = new ArtifactSpool(root, maxBytes, inlineThreshold);
+		spool.load();
+		return spool;
+	}
+
+	// Takes over the first run directory no live server holds, or creates a new one
+	private static Path claimRunDirectory(Path parent) throws IOException {
+		Files.createDirectories(parent);
+		try (Stream<Path> entries = Files.list(parent)) {
+			for (Path candidate : entries.filter(Files::isDirectory)
+					.filter(p -> p.getFileName().toString().startsWith("run-")).sorted().collect(Collectors.toList())) {
+				if (tryLock(candidate)) {
+					return candidate;
+				}
+			}
+		}
+		while (true) {
+			Path created = Files.createTempDirectory(parent, "run-");
+			// Another server starting at the same moment may have taken it already
+			if (tryLock(created)) {
+				return created;
+			}
+		}
+	}
+
+	private static boolean tryLock(Path directory) throws IOException {
+		FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = channel.tryLock();
+		} catch (OverlappingFileLockException e) {
+			// Held by this process already
+			lock = null;
+		}
+		if (lock == null) {
+			channel.close();
+			return false;
+		}
+		runLock = lock;
+		return true;
+	}
+
+	/**
+	 * Text longer than this many characters is spooled instead of returned inline.
+	 */
+	int inlineThreshold() {
+		return inlineThreshold;
+	}
+
+	/**
+	 * Stores the bytes, unless identical bytes are already spooled, and returns the artifact.
+	 */
+	synchronized Artifact put(byte[] data, String mimeType) throws IOException {
+		String name = hash(data) + extension(mimeType);
+		Artifact existing = index.get(name);
+		if (existing != null && Files.isRegularFile(existing.path)) {
+			Files.setLastModifiedTime(existing.path, FileTime.fromMillis(System.currentTimeMillis()));
+			return existing;
+		}
+
+		Files.createDirectories(root);
+		Path target = root.resolve(name);
+		Path tmp = root.resolve(".tmp-" + UUID.randomUUID());
+		try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+			ByteBuffer buffer = ByteBuffer.wrap(data);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		try {
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException e) {
+			Files.deleteIfExists(tmp);
+		}
+
+		Artifact artifact = new Artifact(name, target, data.length, mimeType(name));
+		if (existing != null) {
+			totalBytes -= existing.size;
+		}
+		index.put(name, artifact);
+		totalBytes += artifact.size;
+		evict(name);
+		return artifact;
+	}
+
+	/**
+	 * Moves a file into the spool as an artifact, for outputs too large to hold in memory. The file is hashed as a
+	 * stream; if identical content is already spooled the file is deleted instead.
+	 */
+	Artifact putFile(Path file, String mimeType) throws IOException {
+		String name = hash(file) + extension(mimeType);
+		long size = Files.size(file);
+		synchronized (this) {
+			Artifact existing = index.get(name);
+			if (existing != null && Files.isRegularFile(existing.path)) {
+				Files.delete(file);
+				Files.setLastModifiedTime(existing.path, FileTime.fromMillis(System.currentTimeMillis()));
+				return existing;
+			}
+
+			Files.createDirectories(root);
+			Path target = root.resolve(name);
+			try {
+				Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				// Different file system: copy next to the target first so the artifact still appears atomically
+				Path tmp = root.resolve(".tmp-" + UUID.randomUUID());
+				Files.move(file, tmp);
+				Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+
+			Artifact artifact = new Artifact(name, target, size, mimeType(name));
+			if (existing != null) {
+				totalBytes -= existing.size;
+			}
+			index.put(name, artifact);
+			totalBytes += artifact.size;
+			evict(name);
+			return artifact;
+		}
+	}
+
+	/**
+	 * Reads up to {@code length} bytes of an artifact starting at {@code offset}. Returns null if it is unknown or has
+	 * been evicted.
+	 *
+	 * For text artifacts both ends of the range are moved forward to the next UTF-8 character boundary, so a
+	 * character is never split: the range may start up to 3 bytes later and end up to 3 bytes later than asked.
+	 * Reading on from {@code offset + data.length} of the previous range continues without gaps.
+	 */
+	Range read(String uri, long offset, int length) throws IOException {
+		Artifact artifact;
+		synchronized (this) {
+			artifact = uri.startsWith(URI_PREFIX) ? index.get(uri.substring(URI_PREFIX.length())) : null;
+		}
+		if (artifact == null) {
+			return null;
+		}
+		if (offset < 0 || length < 0) {
+			throw new IllegalArgumentException("offset and length must not be negative");
+		}
+
+		try (FileChannel channel = FileChannel.open(artifact.path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int count = (int) Math.max(0, Math.min(length, size - offset));
+			// The bytes after the range tell whether its last character continues
+			int extra = artifact.isText() ? (int) Math.max(0, Math.min(3, size - offset - count)) : 0;
+			ByteBuffer buffer = ByteBuffer.allocate(count + extra);
+			while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+				// keep reading until the range is filled
+			}
+			byte[] data = buffer.array();
+			if (!artifact.isText()) {
+				return new Range(artifact, offset, data, size);
+			}
+			int start = 0;
+			while (start < data.length && isContinuation(data[start])) {
+				start++;
+			}
+			int end = Math.max(start, count);
+			while (end < data.length && isContinuation(data[end])) {
+				end++;
+			}
+			return new Range(artifact, offset + start, Arrays.copyOfRange(data, start, end), size);
+		} catch (NoSuchFileException e) {
+			synchronized (this) {
+				if (index.remove(artifact.name) != null) {
+					totalBytes -= artifact.size;
+				}
+			}
+			return null;
+		}
+	}
+
+	private void load() {
+		if (!Files.isDirectory(root)) {
+			return;
+		}
+		try (Stream<Path> files = Files.list(root)) {
+			List<Path> existing = files.filter(Files::isRegularFile).collect(Collectors.toList());
+			for (Iterator<Path> it = existing.iterator(); it.hasNext();) {
+				Path file = it.next();
+				String name = file.getFileName().toString();
+				if (name.equals(LOCK_FILE)) {
+					it.remove();
+				} else if (name.startsWith(".tmp-")) {
+					// Leftover of a write interrupted by a crash; nobody else writes here
+					Files.deleteIfExists(file);
+					it.remove();
+				}
+			}
+			existing.sort(Comparator.comparing(ArtifactSpool::lastModified));
+			synchronized (this) {
+				for (Path file : existing) {
+					String name = file.getFileName().toString();
+					Artifact artifact = new Artifact(name, file, Files.size(file), mimeType(name));
+					index.put(name, artifact);
+					totalBytes += artifact.size;
+				}
+				evict(null);
+			}
+		} catch (IOException e) {
+			System.err.println("Error reading artifact spool " + root + ": " + e.getMessage());
+		}
+	}
+
+	private void evict(String keep) {
+		Iterator<Map.Entry<String, Artifact>> it = index.entrySet().iterator();
+		while (totalBytes > maxBytes && it.hasNext()) {
+			Artifact artifact = it.next().getValue();
+			if (artifact.name.equals(keep)) {
+				continue;
+			}
+			try {
+				Files.deleteIfExists(artifact.path);
+			} catch (IOException e) {
+				System.err.println("Error evicting artifact " + artifact.name + ": " + e.getMessage());
+				continue;
+			}
+			it.remove();
+			totalBytes -= artifact.size;
+		}
+	}
+
+	// 10xxxxxx: not the first byte of a UTF-8 character
+	private static boolean isContinuation(byte b) {
+		return (b & 0xc0) == 0x80;
+	}
+
+	private static FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+
+	private static String extension(String mimeType) {
+		switch (mimeType) {
+		case "image/png":
+			return ".png";
+		case "application/json":
+			return ".json";
+		default:
+			return ".txt";
+		}
+	}
+
+	private static String mimeType(String name) {
+		if (name.endsWith(".png")) {
+			return "image/png";
+		} else if (name.endsWith(".json")) {
+			return "application/json";
+		}
+		return TEXT_MIME_TYPE;
+	}
+
+	private static String hash(byte[] data) {
+		MessageDigest digest = sha256();
+		digest.update(data);
+		return name(digest.digest());
+	}
+
+	private static String hash(Path file) throws IOException {
+		MessageDigest digest = sha256();
+		try (InputStream in = Files.newInputStream(file)) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) > 0) {
+				digest.update(buffer, 0, read);
+			}
+		}
+		return name(digest.digest());
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String name(byte[] digest) {
+		StringBuilder hex = new StringBuilder();
+		for (int i = 0; i < NAME_HEX_CHARS / 2; i++) {
+			hex.append(String.format("%02x", digest[i]));
+		}
+		return hex.toString();
+	}
+
+	static final class Artifact {
+		final String name;
+		final Path path;
+		final long size;
+		final String mimeType;
+
+		Artifact(String name, Path path, long size, String mimeType) {
+			this.name = name;
+			this.path = path;
+			this.size = size;
+			this.mimeType = mimeType;
+		}
+
+		String uri() {
+			return URI_PREFIX + name;
+		}
+
+		boolean isText() {
+			return mimeType.startsWith("text/") || mimeType.equals("application/json");
+		}
+	}
+
+	static final class Range {
+		final Artifact artifact;
+		final long offset;
+		final byte[] data;
+		final long totalSize;
+
+		Range(Artifact artifact, long offset, byte[] data, long totalSize) {
+			this.artifact = artifact;
+			this.offset = offset;
+			this.data = data;
+			this.totalSize = totalSize;
+		}
+	}
+}
@@ -0,0 +1,792 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Embedded forward proxy with a cache shared by every browser session that uses it, so static assets are downloaded
+ * once instead of once per fresh browser profile.
+ *
+ * Plain HTTP GET responses are cached following the usual shared-cache rules: {@code no-store}, {@code private},
+ * {@code Set-Cookie} and {@code Vary} (other than Accept-Encoding) responses are not stored; freshness comes from
+ * {@code s-maxage}/{@code max-age}, {@code Expires} or a Last-Modified heuristic, and stale entries with validators
+ * are revalidated with a conditional request. With {@code mcp.proxy.aggressive}, assets whose file names carry a
+ * content hash (e.g. {@code app.3f9a1c2e.js}) are treated as immutable for {@code mcp.proxy.aggressiveTtl} seconds,
+ * whatever the origin or the browser's reload headers say.
+ *
+ * HTTPS is tunnelled with CONNECT and not cached, since that would need a man-in-the-middle certificate.
+ *
+ * Bodies are stored on disk in a directory owned by this process, created under {@code mcp.proxy.cacheDir} (default
+ * the temp directory) and removed on close. The disk cache is capped by {@code mcp.proxy.maxBytes} (default 1 GB,
+ * least recently used first); bodies up to 256 KB are also kept in memory within {@code mcp.proxy.memoryBytes}
+ * (default 64 MB).
+ */
+final class CachingProxy implements AutoCloseable {
+	private static final int MAX_OBJECT_BYTES = 32 * 1024 * 1024;
+	private static final int MEMORY_OBJECT_BYTES = 256 * 1024;
+	private static final long HEURISTIC_MAX_MILLIS = Duration.ofDays(1).toMillis();
+	private static final Set<String> HOP_BY_HOP = Set.of("connection", "proxy-connection", "keep-alive",
+			"proxy-authorization", "proxy-authenticate", "te", "trailer", "transfer-encoding", "upgrade", "host",
+			"content-length", "expect");
+	// Header fields a 304 may update on the stored response
+	private static final Set<String> REVALIDATION_HEADERS = Set.of("cache-control", "expires", "date", "etag",
+			"last-modified");
+	private static final Pattern HASHED_ASSET = Pattern.compile(
+			"(?i).*[._-]([0-9a-f]{8,}|(?=[a-z]*[0-9])[a-z0-9]{16,})\\.(m?js|css|woff2?|ttf|otf|eot|svg|png|jpe?g|gif|webp|avif|ico|wasm)$");
+	private static final Pattern MAX_AGE = Pattern.compile("(?:^|,)\\s*(s-maxage|max-age)\\s*=\\s*\"?(\\d+)");
+
+	private final ServerSocket serverSocket;
+	private final Path directory;
+	private final long maxBytes;
+	private final long memoryBytes;
+	private final boolean aggressive;
+	private final long aggressiveTtlMillis;
+	private final HttpClient client;
+	private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "cache-proxy");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// Access-ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+	private long diskUsed;
+	private long memoryUsed;
+
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong revalidated = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong uncacheable = new AtomicLong();
+	private final AtomicLong tunnels = new AtomicLong();
+	private final AtomicLong bytesFromCache = new AtomicLong();
+	private final AtomicLong bytesFromOrigin = new AtomicLong();
+
+	private CachingProxy(ServerSocket serverSocket, Path directory, long maxBytes, long memoryBytes,
+			boolean aggressive, long aggressiveTtlMillis) {
+		this.serverSocket = serverSocket;
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		this.memoryBytes = memoryBytes;
+		this.aggressive = aggressive;
+		this.aggressiveTtlMillis = aggressiveTtlMillis;
+		this.client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER)
+				.version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(15)).build();
+	}
+
+	/**
+	 * Starts the proxy on a loopback port ({@code mcp.proxy.port}, default any free port).
+	 */
+	static CachingProxy start() throws IOException {
+		// Each process gets a directory of its own: the index lives in memory only, and other servers may share the
+		// parent. Nothing outside it is ever deleted.
+		String parent = System.getProperty("mcp.proxy.cacheDir");
+		Path directory;
+		if (parent != null && !parent.isEmpty()) {
+			directory = Files.createTempDirectory(Files.createDirectories(Paths.get(parent)), "run-");
+		} else {
+			directory = Files.createTempDirectory("mcp-selenium-proxy-cache-");
+		}
+
+		ServerSocket serverSocket = new ServerSocket();
+		serverSocket.bind(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.getInteger("mcp.proxy.port", 0)));
+		long aggressiveTtlSeconds = Long.getLong("mcp.proxy.aggressiveTtl", Duration.ofDays(365).getSeconds());
+		CachingProxy proxy = new CachingProxy(serverSocket, directory,
+				Long.getLong("mcp.proxy.maxBytes", 1024L * 1024 * 1024),
+				Long.getLong("mcp.proxy.memoryBytes", 64L * 1024 * 1024), Boolean.getBoolean("mcp.proxy.aggressive"),
+				TimeUnit.SECONDS.toMillis(aggressiveTtlSeconds));
+
+		Thread acceptor = new Thread(proxy::acceptLoop, "cache-proxy-accept");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		return proxy;
+	}
+
+	/**
+	 * host:port for browser proxy settings.
+	 */
+	String address() {
+		return "127.0.0.1:" + serverSocket.getLocalPort();
+	}
+
+	String stats() {
+		long fromCache = hits.get() + revalidated.get();
+		long lookups = fromCache + misses.get();
+		int entries;
+		long disk;
+		long memory;
+		synchronized (this) {
+			entries = index.size();
+			disk = diskUsed;
+			memory = memoryUsed;
+		}
+		return "Cache proxy at " + address() + (aggressive ? " (aggressive)" : "") + "\n" + "requests=" + requests.get()
+				+ " hits=" + hits.get() + " revalidated=" + revalidated.get() + " misses=" + misses.get()
+				+ " uncacheable=" + uncacheable.get() + " tunnels=" + tunnels.get() + "\n"
+				+ String.format("hit ratio=%.1f%%", lookups == 0 ? 0.0 : 100.0 * fromCache / lookups) + "\n"
+				+ "bytes saved=" + bytesFromCache.get() + " bytes from origin=" + bytesFromOrigin.get() + "\n"
+				+ "entries=" + entries + " disk bytes=" + disk + " memory bytes=" + memory;
+	}
+
+	@Override
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			System.err.println("Error closing cache proxy: " + e.getMessage());
+		}
+		connections.shutdownNow();
+		try {
+			deleteContents(directory);
+			Files.deleteIfExists(directory);
+		} catch (IOException e) {
+			System.err.println("Could not remove cache proxy directory " + directory + ": " + e.getMessage());
+		}
+	}
+
+	private void acceptLoop() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				connections.execute(() -> serve(socket));
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					System.err.println("Cache proxy accept failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket) {
+			InputStream in = new BufferedInputStream(s.getInputStream());
+			OutputStream out = s.getOutputStream();
+			// Keep-alive: serve requests until the browser closes the connection
+			while (true) {
+				Request request = Request.read(in);
+				if (request == null) {
+					return;
+				}
+				requests.incrementAndGet();
+				if ("CONNECT".equals(request.method)) {
+					tunnel(request, s, in, out);
+					return;
+				}
+				if (!request.target.startsWith("http://")) {
+					writeError(out, 400, "Bad Request");
+					return;
+				}
+				if (request.header("upgrade") != null) {
+					passThrough(request, s, in, out);
+					return;
+				}
+				if (!handle(request, in, out) || "close".equalsIgnoreCase(request.header("proxy-connection"))
+						|| "close".equalsIgnoreCase(request.header("connection"))) {
+					return;
+				}
+			}
+		} catch (IOException e) {
+			// The browser dropped the connection
+		} catch (RuntimeException e) {
+			System.err.println("Cache proxy request failed: " + e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Returns false if the connection can't be reused
+	private boolean handle(Request request, InputStream in, OutputStream out) throws IOException, InterruptedException {
+		byte[] body = new byte[0];
+		if (request.header("transfer-encoding") != null) {
+			writeError(out, 411, "Length Required");
+			return false;
+		}
+		String contentLength = request.header("content-length");
+		if (contentLength != null) {
+			body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+		}
+
+		boolean cacheable = ("GET".equals(request.method) || "HEAD".equals(request.method))
+				&& request.header("authorization") == null && request.header("range") == null;
+		if (!cacheable) {
+			uncacheable.incrementAndGet();
+			return forward(request, body, out, null, null);
+		}
+
+		String key = request.target + "\n" + nullToEmpty(request.header("accept-encoding"));
+		boolean hashed = aggressive && HASHED_ASSET.matcher(URI.create(request.target).getPath()).matches();
+		boolean clientRevalidates = !hashed && (containsToken(request.header("cache-control"), "no-cache")
+				|| containsToken(request.header("pragma"), "no-cache"));
+		Entry entry = lookup(key);
+		if (entry != null && !clientRevalidates && entry.freshUntil > System.currentTimeMillis()) {
+			if (serveFromCache(request, entry, out, "HIT")) {
+				hits.incrementAndGet();
+				return true;
+			}
+			entry = null;
+		}
+		return forward(request, body, out, key, entry);
+	}
+
+	/**
+	 * Sends the request to the origin (conditionally if a stale entry has validators) and streams the response,
+	 * storing it when the cache rules allow.
+	 */
+	private boolean forward(Request request, byte[] body, OutputStream out, String key, Entry stale)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.target)).timeout(Duration.ofMinutes(2))
+				.method(request.method, body.length > 0 ? HttpRequest.BodyPublishers.ofByteArray(body)
+						: HttpRequest.BodyPublishers.noBody());
+		for (String[] header : request.headers) {
+			String name = header[0].toLowerCase(Locale.ROOT);
+			if (HOP_BY_HOP.contains(name) || (stale != null && name.startsWith("if-"))) {
+				continue;
+			}
+			try {
+				builder.header(header[0], header[1]);
+			} catch (IllegalArgumentException e) {
+				// A header the JDK client doesn't allow to be set (e.g. Referer on JDK 11); dropped
+			}
+		}
+		if (stale != null) {
+			if (stale.header("etag") != null) {
+				builder.header("If-None-Match", stale.header("etag"));
+			}
+			if (stale.header("last-modified") != null) {
+				builder.header("If-Modified-Since", stale.header("last-modified"));
+			}
+		}
+
+		HttpResponse<InputStream> response;
+		try {
+			response = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+		} catch (IOException e) {
+			writeError(out, 502, "Bad Gateway");
+			return false;
+		}
+
+		if (stale != null && response.statusCode() == 304) {
+			response.body().close();
+			Entry refreshed = stale.revalidated(response, freshUntil(response, request.target, stale.headers));
+			replace(key, stale, refreshed);
+			if (serveFromCache(request, refreshed, out, "REVALIDATED")) {
+				revalidated.incrementAndGet();
+				return true;
+			}
+			// The stored body is gone; fetch it again unconditionally
+			return forward(request, body, out, key, null);
+		}
+
+		List<String[]> headers = new ArrayList<>();
+		response.headers().map().forEach((name, values) -> {
+			if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+				values.forEach(value -> headers.add(new String[] { name, value }));
+			}
+		});
+		long length = response.headers().firstValueAsLong("content-length").orElse(-1);
+		boolean noBody = "HEAD".equals(request.method) || response.statusCode() == 204
+				|| response.statusCode() == 304 || response.statusCode() < 200;
+		boolean store = key != null && "GET".equals(request.method) && isStorable(response, request.target)
+				&& length <= MAX_OBJECT_BYTES;
+		if (key != null) {
+			(store ? misses : uncacheable).incrementAndGet();
+		}
+
+		writeHead(out, response.statusCode(), headers, noBody ? -2 : length, null);
+		if (noBody) {
+			response.body().close();
+			out.flush();
+			return true;
+		}
+		ByteArrayOutputStream copy = store ? new ByteArrayOutputStream(length > 0 ? (int) length : 8192) : null;
+		long transferred = copyBody(response.body(), out, length < 0, copy);
+		bytesFromOrigin.addAndGet(transferred);
+		if (copy != null && copy.size() <= MAX_OBJECT_BYTES) {
+			byte[] stored = copy.toByteArray();
+			store(new Entry(key, response.statusCode(), headers, freshUntil(response, request.target, headers),
+					System.currentTimeMillis(), stored.length, directory.resolve(sha256(key)), stored));
+		}
+		return true;
+	}
+
+	private boolean isStorable(HttpResponse<?> response, String target) {
+		int status = response.statusCode();
+		if (status != 200 && status != 203 && status != 301 && status != 404 && status != 410) {
+			return false;
+		}
+		String cacheControl = String.join(",", response.headers().allValues("cache-control"));
+		if (containsToken(cacheControl, "no-store") || containsToken(cacheControl, "private")
+				|| response.headers().firstValue("set-cookie").isPresent()) {
+			return false;
+		}
+		for (String vary : response.headers().allValues("vary")) {
+			for (String field : vary.split(",")) {
+				if (!field.trim().isEmpty() && !"accept-encoding".equalsIgnoreCase(field.trim())) {
+					return false;
+				}
+			}
+		}
+		// Without freshness information or validators there is nothing to reuse
+		return freshUntil(response, target, null) > System.currentTimeMillis()
+				|| response.headers().firstValue("etag").isPresent()
+				|| response.headers().firstValue("last-modified").isPresent();
+	}
+
+	private long freshUntil(HttpResponse<?> response, String target, List<String[]> storedHeaders) {
+		long now = System.currentTimeMillis();
+		if (aggressive && HASHED_ASSET.matcher(URI.create(target).getPath()).matches()) {
+			return now + aggressiveTtlMillis;
+		}
+		String cacheControl = String.join(",", response.headers().allValues("cache-control"));
+		if (cacheControl.isEmpty() && storedHeaders != null) {
+			cacheControl = nullToEmpty(header(storedHeaders, "cache-control"));
+		}
+		if (containsToken(cacheControl, "no-cache")) {
+			return 0;
+		}
+		// s-maxage wins over max-age in a shared cache
+		long maxAge = -1;
+		Matcher matcher = MAX_AGE.matcher(cacheControl.toLowerCase(Locale.ROOT));
+		while (matcher.find()) {
+			long seconds = Long.parseLong(matcher.group(2));
+			if ("s-maxage".equals(matcher.group(1)) || maxAge < 0) {
+				maxAge = seconds;
+			}
+		}
+		if (maxAge >= 0) {
+			return now + maxAge * 1000;
+		}
+		long date = parseDate(response.headers().firstValue("date").orElse(null), now);
+		String expires = response.headers().firstValue("expires").orElse(null);
+		if (expires != null) {
+			return now + parseDate(expires, 0) - date;
+		}
+		String lastModified = response.headers().firstValue("last-modified")
+				.orElse(storedHeaders != null ? header(storedHeaders, "last-modified") : null);
+		if (lastModified != null) {
+			long modified = parseDate(lastModified, date);
+			return now + Math.min(HEURISTIC_MAX_MILLIS, Math.max(0, (date - modified) / 10));
+		}
+		return 0;
+	}
+
+	private boolean serveFromCache(Request request, Entry entry, OutputStream out, String cacheStatus)
+			throws IOException {
+		byte[] body = entry.memoryBody;
+		if (body == null && !"HEAD".equals(request.method)) {
+			try {
+				body = Files.readAllBytes(entry.file);
+			} catch (NoSuchFileException e) {
+				remove(entry);
+				return false;
+			}
+			if (body.length != entry.size) {
+				// Never send a body that disagrees with the stored Content-Length
+				remove(entry);
+				return false;
+			}
+		}
+		long age = Math.max(0, (System.currentTimeMillis() - entry.storedAt) / 1000);
+		writeHead(out, entry.status, entry.headers, "HEAD".equals(request.method) ? -2 : entry.size,
+				new String[][] { { "Age", Long.toString(age) }, { "X-Cache", cacheStatus } });
+		if (!"HEAD".equals(request.method)) {
+			out.write(body);
+			bytesFromCache.addAndGet(body.length);
+		}
+		out.flush();
+		return true;
+	}
+
+	private synchronized Entry lookup(String key) {
+		return index.get(key);
+	}
+
+	private void store(Entry entry) throws IOException {
+		Path tmp = directory.resolve(".tmp-" + UUID.randomUUID());
+		Files.write(tmp, entry.memoryBody);
+		Files.move(tmp, entry.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		synchronized (this) {
+			Entry previous = index.put(entry.key, entry);
+			if (previous != null) {
+				diskUsed -= previous.size;
+				memoryUsed -= previous.memoryBody != null ? previous.size : 0;
+			}
+			diskUsed += entry.size;
+			if (entry.size <= MEMORY_OBJECT_BYTES) {
+				memoryUsed += entry.size;
+			} else {
+				entry.memoryBody = null;
+			}
+			evict(entry);
+		}
+	}
+
+	private synchronized void replace(String key, Entry stale, Entry refreshed) {
+		if (index.get(key) == stale) {
+			index.put(key, refreshed);
+		}
+	}
+
+	private synchronized void remove(Entry entry) {
+		if (index.remove(entry.key) != null) {
+			diskUsed -= entry.size;
+			memoryUsed -= entry.memoryBody != null ? entry.size : 0;
+		}
+	}
+
+	private void evict(Entry keep) {
+		Iterator<Entry> it = index.values().iterator();
+		while ((diskUsed > maxBytes || memoryUsed > memoryBytes) && it.hasNext()) {
+			Entry entry = it.next();
+			if (entry == keep) {
+				continue;
+			}
+			if (diskUsed > maxBytes) {
+				it.remove();
+				diskUsed -= entry.size;
+				memoryUsed -= entry.memoryBody != null ? entry.size : 0;
+				try {
+					Files.deleteIfExists(entry.file);
+				} catch (IOException e) {
+					System.err.println("Error evicting cached " + entry.file + ": " + e.getMessage());
+				}
+			} else if (entry.memoryBody != null) {
+				// Over the memory budget only: keep the entry on disk
+				memoryUsed -= entry.size;
+				entry.memoryBody = null;
+			}
+		}
+	}
+
+	private void tunnel(Request request, Socket client, InputStream in, OutputStream out) throws IOException {
+		tunnels.incrementAndGet();
+		String[] hostPort = request.target.split(":");
+		try (Socket upstream = new Socket(hostPort[0], hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : 443)) {
+			out.write("HTTP/1.1 200 Connection Established\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+			out.flush();
+			pump(client, in, upstream);
+		} catch (IOException e) {
+			writeError(out, 502, "Bad Gateway");
+		}
+	}
+
+	// WebSocket and other upgrades over plain HTTP: replay the request head and relay raw bytes
+	private void passThrough(Request request, Socket client, InputStream in, OutputStream out) throws IOException {
+		URI uri = URI.create(request.target);
+		try (Socket upstream = new Socket(uri.getHost(), uri.getPort() > 0 ? uri.getPort() : 80)) {
+			StringBuilder head = new StringBuilder(request.method).append(' ')
+					.append(uri.getRawPath().isEmpty() ? "/" : uri.getRawPath())
+					.append(uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "").append(" HTTP/1.1\r\n");
+			for (String[] header : request.headers) {
+				if (!header[0].toLowerCase(Locale.ROOT).startsWith("proxy-")) {
+					head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+				}
+			}
+			upstream.getOutputStream().write(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+			pump(client, in, upstream);
+		} catch (IOException e) {
+			writeError(out, 502, "Bad Gateway");
+		}
+	}
+
+	private void pump(Socket client, InputStream clientIn, Socket upstream) throws IOException {
+		Thread upload = new Thread(() -> {
+			try {
+				clientIn.transferTo(upstream.getOutputStream());
+			} catch (IOException e) {
+				// either side closed
+			} finally {
+				try {
+					upstream.shutdownOutput();
+				} catch (IOException e) {
+					// already closed
+				}
+			}
+		}, "cache-proxy-tunnel");
+		upload.setDaemon(true);
+		upload.start();
+		try {
+			upstream.getInputStream().transferTo(client.getOutputStream());
+		} catch (IOException e) {
+			// either side closed
+		}
+	}
+
+	// length: content length, -1 for chunked, -2 for no body
+	private static void writeHead(OutputStream out, int status, List<String[]> headers, long length,
+			String[][] extra) throws IOException {
+		StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append(' ').append(reason(status))
+				.append("\r\n");
+		for (String[] header : headers) {
+			head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+		}
+		if (extra != null) {
+			for (String[] header : extra) {
+				head.append(header[0]).append(": ").append(header[1]).append("\r\n");
+			}
+		}
+		if (length >= 0) {
+			head.append("Content-Length: ").append(length).append("\r\n");
+		} else if (length == -1) {
+			head.append("Transfer-Encoding: chunked\r\n");
+		}
+		out.write(head.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	private static long copyBody(InputStream body, OutputStream out, boolean chunked, ByteArrayOutputStream copy)
+			throws IOException {
+		long total = 0;
+		try (InputStream in = body) {
+			byte[] buffer = new byte[64 * 1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				if (chunked) {
+					out.write((Integer.toHexString(read) + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+				}
+				out.write(buffer, 0, read);
+				if (chunked) {
+					out.write("\r\n".getBytes(StandardCharsets.ISO_8859_1));
+				}
+				if (copy != null && copy.size() <= MAX_OBJECT_BYTES) {
+					copy.write(buffer, 0, read);
+				}
+				total += read;
+			}
+		}
+		if (chunked) {
+			out.write("0\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+		}
+		out.flush();
+		return total;
+	}
+
+	private static void writeError(OutputStream out, int status, String reason) throws IOException {
+		byte[] body = (status + " " + reason + "\n").getBytes(StandardCharsets.ISO_8859_1);
+		out.write(("HTTP/1.1 " + status + " " + reason + "\r\nContent-Type: text/plain\r\nContent-Length: "
+				+ body.length + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+		out.write(body);
+		out.flush();
+	}
+
+	private static String reason(int status) {
+		switch (status) {
+		case 200:
+			return "OK";
+		case 204:
+			return "No Content";
+		case 301:
+			return "Moved Permanently";
+		case 302:
+			return "Found";
+		case 304:
+			return "Not Modified";
+		case 404:
+			return "Not Found";
+		default:
+			return "Status";
+		}
+	}
+
+	private static long parseDate(String value, long fallback) {
+		if (value == null) {
+			return fallback;
+		}
+		try {
+			return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (RuntimeException e) {
+			// Invalid dates, e.g. "Expires: 0", mean already expired
+			return 0;
+		}
+	}
+
+	private static boolean containsToken(String headerValue, String token) {
+		if (headerValue == null) {
+			return false;
+		}
+		for (String part : headerValue.split(",")) {
+			if (part.trim().toLowerCase(Locale.ROOT).startsWith(token)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String header(List<String[]> headers, String name) {
+		for (String[] header : headers) {
+			if (header[0].equalsIgnoreCase(name)) {
+				return header[1];
+			}
+		}
+		return null;
+	}
+
+	private static String nullToEmpty(String value) {
+		return value != null ? value : "";
+	}
+
+	private static void deleteContents(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try (Stream<Path> walk = Files.walk(directory)) {
+			for (Path p : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+				if (!p.equals(directory)) {
+					Files.deleteIfExists(p);
+				}
+			}
+		}
+	}
+
+	private static String sha256(String value) {
+		try {
+			StringBuilder hex = new StringBuilder();
+			for (byte b : MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class Entry {
+		final String key;
+		final int status;
+		final List<String[]> headers;
+		final long freshUntil;
+		final long storedAt;
+		final long size;
+		final Path file;
+		volatile byte[] memoryBody;
+
+		Entry(String key, int status, List<String[]> headers, long freshUntil, long storedAt, long size,
+				Path file, byte[] memoryBody) {
+			this.key = key;
+			this.status = status;
+			this.headers = headers;
+			this.freshUntil = freshUntil;
+			this.storedAt = storedAt;
+			this.size = size;
+			this.file = file;
+			this.memoryBody = memoryBody;
+		}
+
+		String header(String name) {
+			return CachingProxy.header(headers, name);
+		}
+
+		// Same body with the header fields a 304 carries applied
+		Entry revalidated(HttpResponse<?> response, long freshUntil) {
+			List<String[]> updated = new ArrayList<>();
+			for (String[] header : headers) {
+				if (!REVALIDATION_HEADERS.contains(header[0].toLowerCase(Locale.ROOT))
+						|| response.headers().firstValue(header[0]).isEmpty()) {
+					updated.add(header);
+				}
+			}
+			response.headers().map().forEach((name, values) -> {
+				if (REVALIDATION_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+					values.forEach(value -> updated.add(new String[] { name, value }));
+				}
+			});
+			return new Entry(key, status, updated, freshUntil, System.currentTimeMillis(), size, file, memoryBody);
+		}
+	}
+
+	private static final class Request {
+		final String method;
+		final String target;
+		final List<String[]> headers;
+
+		private Request(String method, String target, List<String[]> headers) {
+			this.method = method;
+			this.target = target;
+			this.headers = headers;
+		}
+
+		// Null when the connection closed before a request line
+		static Request read(InputStream in) throws IOException {
+			String requestLine = readLine(in);
+			while (requestLine != null && requestLine.isEmpty()) {
+				requestLine = readLine(in);
+			}
+			if (requestLine == null) {
+				return null;
+			}
+			String[] parts = requestLine.split(" ");
+			if (parts.length < 3) {
+				throw new IOException("Malformed request line: " + requestLine);
+			}
+			List<String[]> headers = new ArrayList<>();
+			String line;
+			while ((line = readLine(in)) != null && !line.isEmpty()) {
+				int colon = line.indexOf(':');
+				if (colon > 0) {
+					headers.add(new String[] { line.substring(0, colon).trim(), line.substring(colon + 1).trim() });
+				}
+			}
+			return new Request(parts[0], parts[1], headers);
+		}
+
+		String header(String name) {
+			return CachingProxy.header(headers, name);
+		}
+
+		private static String readLine(InputStream in) throws IOException {
+			ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+			int b;
+			while ((b = in.read()) != -1) {
+				if (b == '\n') {
+					break;
+				}
+				if (b != '\r') {
+					line.write(b);
+				}
+				if (line.size() > 64 * 1024) {
+					throw new IOException("Header line too long");
+				}
+			}
+			if (b == -1 && line.size() == 0) {
+				return null;
+			}
+			return line.toString(StandardCharsets.ISO_8859_1);
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Checks the caching proxy against a local origin, without a browser.
+ *
+ * A fixture server acts as the origin, with an extra content-hashed asset. Two proxies share one cache parent
+ * directory, as servers started by the load generator do. The check covers a miss, a hit, a revalidation, the
+ * aggressive mode, each proxy keeping its own cache files, and the cache files being removed on close. Every body
+ * is compared with the origin's. Exits with status 1 on the first failed check.
+ *
+ * <pre>
+ * java -cp target/mcp-selenium-0.1.0-jar-with-dependencies.jar io.github.naveenautomation.mcpselenium.CachingProxyCheck
+ * </pre>
+ */
+public class CachingProxyCheck {
+	private static final String HASHED_ASSET = "app.3f9a1c2e.js";
+
+	public static void main(String[] args) {
+		try {
+			run();
+			System.out.println("All proxy checks passed");
+		} catch (Exception e) {
+			System.err.println("Proxy check failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static void run() throws Exception {
+		Path origin = Files.createTempDirectory("mcp-proxy-origin-");
+		Path cacheParent = Files.createTempDirectory("mcp-proxy-check-");
+		Files.write(origin.resolve("index.html"), "<html><body>origin</body></html>".getBytes(StandardCharsets.UTF_8));
+		Files.write(origin.resolve(HASHED_ASSET), "console.log('v1');".getBytes(StandardCharsets.UTF_8));
+		System.setProperty("mcp.proxy.cacheDir", cacheParent.toString());
+
+		try (FixtureServer fixtures = FixtureServer.start(origin)) {
+			String page = fixtures.baseUrl() + "/index.html";
+			String asset = fixtures.baseUrl() + "/" + HASHED_ASSET;
+			byte[] pageBody = Files.readAllBytes(origin.resolve("index.html"));
+			byte[] assetBody = Files.readAllBytes(origin.resolve(HASHED_ASSET));
+
+			System.setProperty("mcp.proxy.aggressive", "false");
+			CachingProxy first = CachingProxy.start();
+			System.setProperty("mcp.proxy.aggressive", "true");
+			CachingProxy second = CachingProxy.start();
+			try {
+				expect(first, page, false, pageBody, null, "first request is a miss");
+				expect(first, page, false, pageBody, "HIT", "repeated request is a hit");
+				expect(first, page, true, pageBody, "REVALIDATED", "no-cache request is revalidated");
+				expect(first, asset, false, assetBody, null, "asset miss");
+				expect(first, asset, true, assetBody, "REVALIDATED", "hashed asset is revalidated by default");
+
+				expect(second, asset, false, assetBody, null, "second proxy has its own cache");
+				expect(second, asset, true, assetBody, "HIT", "aggressive mode ignores no-cache for hashed assets");
+				check(countEntries(cacheParent) == 2, "each proxy has its own cache directory");
+			} finally {
+				second.close();
+			}
+			try {
+				check(countEntries(cacheParent) == 1, "a closed proxy removes only its own directory");
+				expect(first, page, false, pageBody, "HIT", "other proxy still serves its cache");
+				System.out.println(first.stats());
+			} finally {
+				first.close();
+			}
+			check(countEntries(cacheParent) == 0, "cache directories are removed on close");
+		} finally {
+			System.clearProperty("mcp.proxy.cacheDir");
+			System.clearProperty("mcp.proxy.aggressive");
+			for (String name : new String[] { "index.html", HASHED_ASSET }) {
+				Files.deleteIfExists(origin.resolve(name));
+			}
+			Files.deleteIfExists(origin);
+			Files.deleteIfExists(cacheParent);
+		}
+	}
+
+	private static void expect(CachingProxy proxy, String url, boolean noCache, byte[] body, String cacheStatus,
+			String description) throws IOException, InterruptedException {
+		String[] address = proxy.address().split(":");
+		HttpClient client = HttpClient.newBuilder()
+				.proxy(ProxySelector.of(new InetSocketAddress(address[0], Integer.parseInt(address[1])))).build();
+		HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+		if (noCache) {
+			request.header("Cache-Control", "no-cache");
+		}
+		HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+		String actualStatus = response.headers().firstValue("X-Cache").orElse(null);
+		check(response.statusCode() == 200, description + " (HTTP " + response.statusCode() + ")");
+		check(Arrays.equals(body, response.body()), description + " (body differs from origin)");
+		check(cacheStatus == null ? actualStatus == null : cacheStatus.equals(actualStatus),
+				description + " (X-Cache " + actualStatus + ")");
+		System.out.println("ok: " + description);
+	}
+
+	private static long countEntries(Path directory) throws IOException {
+		try (Stream<Path> entries = Files.list(directory)) {
+			return entries.count();
+		}
+	}
+
+	private static void check(boolean condition, String description) {
+		if (!condition) {
+			throw new IllegalStateException(description);
+		}
+	}
+}
@@ -0,0 +1,251 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bounded list model behind the client's log view.
+ *
+ * Lines can be added from any thread; they are queued and applied on the EDT in batches every
+ * {@value #FLUSH_MILLIS} ms, so a burst of output costs one repaint instead of one per line. The model keeps the
+ * newest {@code maxEntries} entries in a ring and evicts the oldest. Each entry renders a one-line preview; the full
+ * text is kept for expansion until the retained full text exceeds {@code maxRetainedChars}, after which the oldest
+ * payloads are dropped and only their previews remain.
+ *
+ * Requests and responses are paired by tool_call_id, and both show the round-trip time once the response arrives. A
+ * request stops waiting for its response when it is evicted or cleared from the log, or when the server goes away.
+ */
+final class ClientLogModel extends AbstractListModel<ClientLogModel.Entry> {
+	private static final long serialVersionUID = 1L;
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final int FLUSH_MILLIS = 100;
+	private static final int PREVIEW_CHARS = 300;
+
+	private final Entry[] ring;
+	private final long maxRetainedChars;
+	private final ConcurrentLinkedQueue<Entry> pending = new ConcurrentLinkedQueue<>();
+	private final Map<String, Entry> outstanding = new ConcurrentHashMap<>();
+	// EDT-only state below
+	private long firstSeq;
+	private long nextSeq;
+	private long retainedChars;
+	private long retainedFromSeq;
+
+	ClientLogModel(int maxEntries, long maxRetainedChars) {
+		this.ring = new Entry[maxEntries];
+		this.maxRetainedChars = maxRetainedChars;
+		Timer timer = new Timer(FLUSH_MILLIS, e -> flush());
+		timer.setCoalesce(true);
+		timer.start();
+	}
+
+	/**
+	 * Logs an outgoing request and starts its round-trip clock.
+	 */
+	void request(String callId, String json) {
+		Entry entry = new Entry(Kind.REQUEST, "Sending", json, callId);
+		if (callId != null) {
+			outstanding.put(callId, entry);
+		}
+		pending.add(entry);
+	}
+
+	/**
+	 * Logs a response line from the server, pairing it with its request when the tool_call_id is known.
+	 */
+	void response(String json) {
+		long received = System.nanoTime();
+		String callId = null;
+		try {
+			JsonNode id = objectMapper.readTree(json).get("tool_call_id");
+			callId = id != null ? id.asText() : null;
+		} catch (Exception e) {
+			// Not JSON; logged as is
+		}
+		Entry entry = new Entry(Kind.RESPONSE, "Response", json, callId);
+		Entry request = callId != null ? outstanding.remove(callId) : null;
+		if (request != null) {
+			entry.request = request;
+			entry.latencyNanos = received - request.sentNanos;
+			request.latencyNanos = entry.latencyNanos;
+		}
+		pending.add(entry);
+	}
+
+	/**
+	 * Stops waiting for the responses of all requests sent so far, for when the server has stopped. They are shown as
+	 * unanswered.
+	 */
+	void abandonOutstanding() {
+		for (Iterator<Entry> it = outstanding.values().iterator(); it.hasNext();) {
+			it.next().unanswered = true;
+			it.remove();
+		}
+		SwingUtilities.invokeLater(() -> {
+			int size = getSize();
+			if (size > 0) {
+				fireContentsChanged(this, 0, size - 1);
+			}
+		});
+	}
+
+	void info(String message) {
+		pending.add(new Entry(Kind.INFO, null, message, null));
+	}
+
+	@Override
+	public int getSize() {
+		return (int) (nextSeq - firstSeq);
+	}
+
+	@Override
+	public Entry getElementAt(int index) {
+		return ring[(int) ((firstSeq + index) % ring.length)];
+	}
+
+	void clear() {
+		int size = getSize();
+		for (int i = 0; i < ring.length; i++) {
+			forget(ring[i]);
+			ring[i] = null;
+		}
+		firstSeq = nextSeq;
+		retainedFromSeq = nextSeq;
+		retainedChars = 0;
+		if (size > 0) {
+			fireIntervalRemoved(this, 0, size - 1);
+		}
+	}
+
+	private void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		int oldSize = getSize();
+		int evicted = 0;
+		long changedFrom = Long.MAX_VALUE;
+		long changedTo = -1;
+		Entry entry;
+		while ((entry = pending.poll()) != null) {
+			if (getSize() == ring.length) {
+				Entry oldest = ring[(int) (firstSeq % ring.length)];
+				forget(oldest);
+				if (oldest.fullText != null && oldest.seq >= retainedFromSeq) {
+					retainedChars -= oldest.fullText.length();
+				}
+				firstSeq++;
+				retainedFromSeq = Math.max(retainedFromSeq, firstSeq);
+				evicted++;
+			}
+			entry.seq = nextSeq++;
+			ring[(int) (entry.seq % ring.length)] = entry;
+			retainedChars += entry.fullText.length();
+
+			// A response updates the latency shown on its request row
+			if (entry.request != null && entry.request.seq >= firstSeq && entry.request.seq < entry.seq) {
+				changedFrom = Math.min(changedFrom, entry.request.seq);
+				changedTo = Math.max(changedTo, entry.request.seq);
+			}
+		}
+		dropOldPayloads();
+
+		evicted = Math.min(evicted, oldSize);
+		if (evicted > 0) {
+			fireIntervalRemoved(this, 0, evicted - 1);
+		}
+		int size = getSize();
+		fireIntervalAdded(this, oldSize - evicted, size - 1);
+		if (changedTo >= firstSeq) {
+			fireContentsChanged(this, (int) (Math.max(changedFrom, firstSeq) - firstSeq), (int) (changedTo - firstSeq));
+		}
+	}
+
+	// A request that leaves the log no longer waits for its response
+	private void forget(Entry entry) {
+		if (entry != null && entry.kind == Kind.REQUEST && entry.callId != null) {
+			outstanding.remove(entry.callId, entry);
+		}
+	}
+
+	private void dropOldPayloads() {
+		while (retainedChars > maxRetainedChars && retainedFromSeq < nextSeq - 1) {
+			// Entries before retainedFromSeq no longer count; short ones keep their text since it is the preview
+			Entry oldest = ring[(int) (retainedFromSeq % ring.length)];
+			if (oldest.fullText != null) {
+				retainedChars -= oldest.fullText.length();
+				if (oldest.isTruncated()) {
+					oldest.fullText = null;
+				}
+			}
+			retainedFromSeq++;
+		}
+	}
+
+	enum Kind {
+		REQUEST, RESPONSE, INFO
+	}
+
+	static final class Entry {
+		final Kind kind;
+		final String label;
+		final String callId;
+		final String preview;
+		final int length;
+		final long sentNanos = System.nanoTime();
+		volatile String fullText;
+		volatile long latencyNanos = -1;
+		volatile boolean unanswered;
+		Entry request;
+		long seq;
+
+		Entry(Kind kind, String label, String text, String callId) {
+			this.kind = kind;
+			this.label = label;
+			this.callId = callId;
+			this.length = text.length();
+			this.fullText = text;
+			String line = text.length() > PREVIEW_CHARS ? text.substring(0, PREVIEW_CHARS) : text;
+			line = line.replace('\n', ' ').replace('\r', ' ');
+			this.preview = text.length() > PREVIEW_CHARS
+					? line + " … (" + formatSize(text.length()) + ", double-click to expand)"
+					: line;
+		}
+
+		boolean isTruncated() {
+			return length > PREVIEW_CHARS;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder();
+			if (label != null) {
+				text.append(label);
+				if (callId != null) {
+					text.append(" [").append(callId);
+					if (latencyNanos >= 0) {
+						text.append(", ").append(String.format("%.1f ms", latencyNanos / 1e6));
+					} else if (kind == Kind.REQUEST) {
+						text.append(unanswered ? ", no response" : ", pending");
+					}
+					text.append(']');
+				}
+				text.append(": ");
+			}
+			return text.append(preview).toString();
+		}
+
+		private static String formatSize(int chars) {
+			return chars >= 1024 * 1024 ? String.format("%.1f MB", chars / (1024.0 * 1024))
+					: chars >= 1024 ? String.format("%.1f KB", chars / 1024.0) : chars + " chars";
+		}
+	}
+}
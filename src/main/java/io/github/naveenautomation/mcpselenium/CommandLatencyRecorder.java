@@ -0,0 +1,198 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpHandler;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+/**
+ * Records the round-trip latency of every WebDriver command one session sends to its driver binary.
+ *
+ * It is installed as a {@link Filter} on the session's {@code ClientConfig}, so it times the HTTP exchange with the
+ * driver and names it after the W3C endpoint (findElement, click, screenshot...). Each exchange is also emitted
+ * as a {@link FlightEvents.DriverCommand} event when a flight recording is running.
+ */
+final class CommandLatencyRecorder implements Filter {
+	// Log2 buckets of microseconds: bucket i holds latencies in [2^i, 2^(i+1)) us
+	private static final int BUCKETS = 32;
+
+	private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+	@Override
+	public HttpHandler apply(HttpHandler next) {
+		return request -> {
+			FlightEvents.DriverCommand event = new FlightEvents.DriverCommand();
+			event.begin();
+			long start = System.nanoTime();
+			HttpResponse response = null;
+			try {
+				response = next.execute(request);
+				return response;
+			} finally {
+				String command = commandName(request);
+				record(command, System.nanoTime() - start);
+				event.end();
+				if (event.shouldCommit()) {
+					event.command = command;
+					event.driverSession = driverSessionId(request);
+					event.status = response != null ? response.getStatus() : 0;
+					event.commit();
+				}
+			}
+		};
+	}
+
+	private static String driverSessionId(HttpRequest request) {
+		String[] segments = request.getUri().replaceAll("^/+", "").split("/");
+		return segments.length > 1 && "session".equals(segments[0]) ? segments[1] : null;
+	}
+
+	void record(String command, long nanos) {
+		stats.computeIfAbsent(command, c -> new Stats()).add(nanos);
+	}
+
+	/**
+	 * One line per command, slowest total time first.
+	 */
+	List<String> summary() {
+		List<Map.Entry<String, Stats>> entries = new ArrayList<>(stats.entrySet());
+		entries.sort((a, b) -> Long.compare(b.getValue().totalNanos.sum(), a.getValue().totalNanos.sum()));
+
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Stats> entry : entries) {
+			Stats s = entry.getValue();
+			long count = s.count.sum();
+			lines.add(String.format("%s: count=%d avg=%.2fms p50<=%.2fms p95<=%.2fms p99<=%.2fms max=%.2fms",
+					entry.getKey(), count, millis(s.totalNanos.sum() / Math.max(count, 1)), s.percentileMillis(0.50),
+					s.percentileMillis(0.95), s.percentileMillis(0.99), millis(s.maxNanos.get())));
+		}
+		return lines;
+	}
+
+	private static double millis(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+
+	/**
+	 * Maps a W3C WebDriver request to a command name, e.g. {@code POST /session/{id}/element/{id}/click} to "click".
+	 */
+	static String commandName(HttpRequest request) {
+		String method = request.getMethod().toString();
+		String[] segments = request.getUri().replaceAll("^/+|/+$", "").split("/");
+
+		// Drop "session/{sessionId}" and collapse ids into a path shape like "element/*/click"
+		StringBuilder shape = new StringBuilder();
+		int start = segments.length > 1 && "session".equals(segments[0]) ? 2 : 0;
+		for (int i = start; i < segments.length; i++) {
+			String segment = segments[i];
+			boolean isId = i > start && isIdParent(segments[i - 1]);
+			if (shape.length() > 0) {
+				shape.append('/');
+			}
+			shape.append(isId ? "*" : segment);
+		}
+		String path = shape.toString();
+
+		switch (method + " " + path) {
+		case "POST session":
+			return "newSession";
+		case "DELETE ":
+			return "quit";
+		case "POST url":
+			return "get";
+		case "GET url":
+			return "getCurrentUrl";
+		case "GET title":
+			return "getTitle";
+		case "GET source":
+			return "getPageSource";
+		case "POST element":
+			return "findElement";
+		case "POST elements":
+			return "findElements";
+		case "POST element/*/element":
+			return "findChildElement";
+		case "POST element/*/elements":
+			return "findChildElements";
+		case "POST element/*/click":
+			return "click";
+		case "POST element/*/clear":
+			return "clear";
+		case "POST element/*/value":
+			return "sendKeys";
+		case "GET element/*/text":
+			return "getText";
+		case "GET element/*/displayed":
+			return "isDisplayed";
+		case "GET element/*/enabled":
+			return "isEnabled";
+		case "GET screenshot":
+			return "screenshot";
+		case "GET element/*/screenshot":
+			return "elementScreenshot";
+		case "POST execute/sync":
+			return "executeScript";
+		case "POST execute/async":
+			return "executeAsyncScript";
+		case "POST actions":
+			return "actions";
+		default:
+			return method + " " + path;
+		}
+	}
+
+	private static boolean isIdParent(String segment) {
+		switch (segment) {
+		case "element":
+		case "shadow":
+		case "attribute":
+		case "property":
+		case "css":
+		case "cookie":
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private static final class Stats {
+		final LongAdder count = new LongAdder();
+		final LongAdder totalNanos = new LongAdder();
+		final AtomicLong maxNanos = new AtomicLong();
+		final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+		void add(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+			long micros = Math.max(nanos / 1000, 1);
+			int bucket = Math.min(63 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+			histogram.incrementAndGet(bucket);
+		}
+
+		// Upper bound of the bucket holding the given percentile
+		double percentileMillis(double percentile) {
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				total += histogram.get(i);
+			}
+			long rank = (long) Math.ceil(total * percentile);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += histogram.get(i);
+				if (seen >= rank && seen > 0) {
+					return (1L << (i + 1)) / 1000.0;
+				}
+			}
+			return 0;
+		}
+	}
+}
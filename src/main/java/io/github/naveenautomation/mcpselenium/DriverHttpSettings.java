@@ -0,0 +1,81 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.time.Duration;
+
+import org.openqa.selenium.remote.http.ClientConfig;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * HTTP client settings for the connection between the server and each driver binary (chromedriver, geckodriver).
+ *
+ * Server-wide defaults come from system properties; timeouts and the HTTP version can be overridden per session
+ * through the {@code http} object in the start_browser options. Connection pool size and keep-alive are properties
+ * of the JDK HttpClient itself, so they can only be set server-wide:
+ *
+ * <pre>
+ * mcp.http.connectTimeout   connection timeout in ms (Selenium default 10000)
+ * mcp.http.readTimeout      read timeout in ms (Selenium default 180000)
+ * mcp.http.version          HTTP_1_1 or HTTP_2
+ * mcp.http.poolSize         max pooled connections per client (jdk.httpclient.connectionPoolSize)
+ * mcp.http.keepAlive        idle keep-alive in seconds (jdk.httpclient.keepalive.timeout)
+ * mcp.http.factory          Selenium HttpClient factory name (webdriver.http.factory), default jdk-http-client
+ * </pre>
+ */
+final class DriverHttpSettings {
+	private static final String DEFAULT_FACTORY = "jdk-http-client";
+
+	private DriverHttpSettings() {
+	}
+
+	/**
+	 * Pushes the server-wide settings into the JDK and Selenium properties. Must run before the first driver is
+	 * created, since the JDK HttpClient reads its pool settings once.
+	 */
+	static void applyGlobalDefaults() {
+		copyProperty("mcp.http.poolSize", "jdk.httpclient.connectionPoolSize");
+		copyProperty("mcp.http.keepAlive", "jdk.httpclient.keepalive.timeout");
+		if (System.getProperty("webdriver.http.factory") == null) {
+			System.setProperty("webdriver.http.factory", System.getProperty("mcp.http.factory", DEFAULT_FACTORY));
+		}
+	}
+
+	/**
+	 * Builds the client config for one session, with its latency recorder installed as a filter.
+	 */
+	static ClientConfig clientConfig(JsonNode optionsNode, CommandLatencyRecorder recorder) {
+		JsonNode httpNode = optionsNode != null && optionsNode.has("http") ? optionsNode.get("http") : null;
+
+		ClientConfig config = ClientConfig.defaultConfig().withFilter(recorder);
+
+		Long connectTimeout = longSetting(httpNode, "connectTimeout", "mcp.http.connectTimeout");
+		if (connectTimeout != null) {
+			config = config.connectionTimeout(Duration.ofMillis(connectTimeout));
+		}
+		Long readTimeout = longSetting(httpNode, "readTimeout", "mcp.http.readTimeout");
+		if (readTimeout != null) {
+			config = config.readTimeout(Duration.ofMillis(readTimeout));
+		}
+		String version = httpNode != null && httpNode.has("version") ? httpNode.get("version").asText()
+				: System.getProperty("mcp.http.version");
+		if (version != null && !version.isEmpty()) {
+			config = config.version(version.toUpperCase());
+		}
+		return config;
+	}
+
+	private static Long longSetting(JsonNode node, String option, String property) {
+		if (node != null && node.has(option)) {
+			return node.get(option).asLong();
+		}
+		String value = System.getProperty(property);
+		return value != null ? Long.valueOf(value) : null;
+	}
+
+	private static void copyProperty(String from, String to) {
+		String value = System.getProperty(from);
+		if (value != null && System.getProperty(to) == null) {
+			System.setProperty(to, value);
+		}
+	}
+}
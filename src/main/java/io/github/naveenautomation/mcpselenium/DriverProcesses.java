@@ -0,0 +1,337 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.service.DriverService;
+
+/**
+ * Owns the chromedriver/geckodriver processes started by this server and the browsers under them.
+ *
+ * {@link #quit} and {@link #quitAll} run {@code driver.quit()} on background threads with a deadline
+ * ({@code mcp.quit.timeout}, default 10000 ms); any driver that has not quit by then has its process tree killed
+ * through {@link ProcessHandle}. Every launch is also recorded in a pid file under {@code mcp.processes.dir}
+ * (default {@code <tmpdir>/mcp-selenium-processes}), so a later server can reap what a crashed one left behind.
+ */
+final class DriverProcesses {
+	private static final String PID_FILE_SUFFIX = ".pids";
+	// How long processes may take to exit on their own after a clean quit
+	private static final long EXIT_GRACE_MILLIS = 2000;
+
+	private final Path directory;
+	private final long quitTimeoutMillis;
+	private final Map<WebDriver, Launch> launches = Collections.synchronizedMap(new IdentityHashMap<>());
+	private final ExecutorService quitters = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "driver-quit");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	DriverProcesses(Path directory, long quitTimeoutMillis) {
+		this.directory = directory;
+		this.quitTimeoutMillis = quitTimeoutMillis;
+	}
+
+	static DriverProcesses fromSystemProperties() {
+		String dir = System.getProperty("mcp.processes.dir",
+				Paths.get(System.getProperty("java.io.tmpdir"), "mcp-selenium-processes").toString());
+		return new DriverProcesses(Paths.get(dir), Long.getLong("mcp.quit.timeout", 10000L));
+	}
+
+	/**
+	 * Starts the driver service, then creates the driver on it and records the driver and browser processes. If
+	 * creating the driver fails, the service's process tree is killed.
+	 */
+	<S extends DriverService, T extends WebDriver> T launch(S service, Function<S, T> factory) {
+		ProcessHandle driverProcess = startService(service);
+		T driver;
+		try {
+			driver = factory.apply(service);
+		} catch (RuntimeException e) {
+			if (driverProcess != null) {
+				killTree(driverProcess);
+			}
+			service.stop();
+			throw e;
+		}
+		launches.put(driver, record(driverProcess, service.getUrl()));
+		return driver;
+	}
+
+	/**
+	 * URL of the driver service the driver was launched on, or null if it wasn't launched here.
+	 */
+	URL serviceUrl(WebDriver driver) {
+		Launch launch = launches.get(driver);
+		return launch != null ? launch.serviceUrl : null;
+	}
+
+	/**
+	 * Pid file recording the driver's processes, or null if there is none.
+	 */
+	Path pidFile(WebDriver driver) {
+		Launch launch = launches.get(driver);
+		return launch != null ? launch.pidFile : null;
+	}
+
+	/**
+	 * Stops tracking the driver but leaves its processes running and its pid file in place, so a later server can
+	 * {@link #adopt} them (or reap them if it doesn't).
+	 */
+	void detach(WebDriver driver) {
+		launches.remove(driver);
+	}
+
+	/**
+	 * Takes over the processes a previous server recorded in the pid file for a driver reattached to them: the file
+	 * is rewritten with this server as the owner, so {@link #reapOrphans} leaves them alone, and quitting the driver
+	 * kills them as if this server had launched them.
+	 */
+	void adopt(WebDriver driver, URL serviceUrl, Path pidFile) {
+		List<ProcessHandle> processes = new ArrayList<>();
+		if (pidFile != null && Files.isRegularFile(pidFile)) {
+			try {
+				List<String> lines = Files.readAllLines(pidFile, StandardCharsets.UTF_8);
+				StringBuilder content = new StringBuilder(describe(ProcessHandle.current())).append('\n');
+				for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+					ProcessHandle process = find(line);
+					if (process != null) {
+						processes.add(process);
+						content.append(line).append('\n');
+					}
+				}
+				Files.write(pidFile, content.toString().getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				System.err.println("Could not adopt driver processes from " + pidFile + ": " + e.getMessage());
+			}
+		}
+		launches.put(driver, new Launch(processes, pidFile, serviceUrl));
+	}
+
+	/**
+	 * Quits the driver, killing its process tree if quit fails or takes longer than the deadline.
+	 */
+	void quit(WebDriver driver) {
+		quitAll(Collections.singletonList(driver));
+	}
+
+	/**
+	 * Quits all drivers in parallel under one deadline, then kills the process trees of those that didn't finish.
+	 */
+	void quitAll(Collection<WebDriver> drivers) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(quitTimeoutMillis);
+		Map<WebDriver, Future<?>> pending = new IdentityHashMap<>();
+		for (WebDriver driver : drivers) {
+			pending.put(driver, quitters.submit(driver::quit));
+		}
+
+		Map<Launch, Boolean> quitCleanly = new IdentityHashMap<>();
+		for (Map.Entry<WebDriver, Future<?>> entry : pending.entrySet()) {
+			Launch launch = launches.remove(entry.getKey());
+			boolean clean = false;
+			try {
+				entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+				clean = true;
+			} catch (TimeoutException e) {
+				System.err.println("Driver did not quit within " + quitTimeoutMillis + " ms; killing its processes");
+				entry.getValue().cancel(true);
+			} catch (ExecutionException e) {
+				System.err.println("Error quitting driver: " + e.getCause().getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (launch != null) {
+				quitCleanly.put(launch, clean);
+			}
+		}
+
+		// Also catches browsers a clean quit left running
+		long graceDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(EXIT_GRACE_MILLIS);
+		for (Map.Entry<Launch, Boolean> entry : quitCleanly.entrySet()) {
+			entry.getKey().kill(entry.getValue() ? graceDeadline : System.nanoTime());
+			entry.getKey().forget();
+		}
+	}
+
+	/**
+	 * Kills the process trees recorded by servers that are no longer running, and returns how many processes were
+	 * killed.
+	 */
+	int reapOrphans() {
+		if (!Files.isDirectory(directory)) {
+			return 0;
+		}
+		int killed = 0;
+		List<Path> files;
+		try (Stream<Path> list = Files.list(directory)) {
+			files = list.filter(p -> p.getFileName().toString().endsWith(PID_FILE_SUFFIX)).collect(Collectors.toList());
+		} catch (IOException e) {
+			System.err.println("Error reading " + directory + ": " + e.getMessage());
+			return 0;
+		}
+
+		for (Path file : files) {
+			try {
+				List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+				if (lines.isEmpty()) {
+					Files.deleteIfExists(file);
+					continue;
+				}
+				// First line is the server that launched the processes; leave live servers alone
+				if (find(lines.get(0)) != null) {
+					continue;
+				}
+				for (String line : lines.subList(1, lines.size())) {
+					ProcessHandle process = find(line);
+					if (process != null) {
+						killed += killTree(process);
+					}
+				}
+				Files.deleteIfExists(file);
+			} catch (IOException | RuntimeException e) {
+				System.err.println("Error reaping processes from " + file + ": " + e.getMessage());
+			}
+		}
+		return killed;
+	}
+
+	private ProcessHandle startService(DriverService service) {
+		Set<Long> before;
+		Set<ProcessHandle> started;
+		// Children are diffed around start(), so two services must not start at the same time
+		synchronized (this) {
+			before = ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+			try {
+				service.start();
+			} catch (IOException e) {
+				throw new WebDriverException("Could not start driver service", e);
+			}
+			started = ProcessHandle.current().children().filter(p -> !before.contains(p.pid()))
+					.filter(ProcessHandle::isAlive).collect(Collectors.toSet());
+		}
+		if (started.size() != 1) {
+			System.err.println("Could not identify the driver process (" + started.size() + " candidates)");
+			return null;
+		}
+		return started.iterator().next();
+	}
+
+	private Launch record(ProcessHandle driverProcess, URL serviceUrl) {
+		if (driverProcess == null) {
+			return new Launch(Collections.emptyList(), null, serviceUrl);
+		}
+		// The browser is a child of the driver; recording it separately lets a later server find it even after the
+		// driver died and the browser was re-parented
+		List<ProcessHandle> processes = new ArrayList<>();
+		processes.add(driverProcess);
+		driverProcess.children().forEach(processes::add);
+
+		StringBuilder content = new StringBuilder(describe(ProcessHandle.current())).append('\n');
+		for (ProcessHandle process : processes) {
+			content.append(describe(process)).append('\n');
+		}
+		Path file = directory.resolve(UUID.randomUUID() + PID_FILE_SUFFIX);
+		try {
+			Files.createDirectories(directory);
+			Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			System.err.println("Could not record driver processes in " + file + ": " + e.getMessage());
+			file = null;
+		}
+		return new Launch(processes, file, serviceUrl);
+	}
+
+	static String describe(ProcessHandle process) {
+		return process.pid() + " " + process.info().startInstant().map(Instant::toEpochMilli).orElse(0L);
+	}
+
+	// The recorded process, if it is still running; the start time guards against reused pids
+	static ProcessHandle find(String line) {
+		String[] parts = line.trim().split(" ");
+		if (parts.length != 2 || "0".equals(parts[1])) {
+			return null;
+		}
+		long startMillis = Long.parseLong(parts[1]);
+		return ProcessHandle.of(Long.parseLong(parts[0])).filter(ProcessHandle::isAlive)
+				.filter(p -> p.info().startInstant().map(Instant::toEpochMilli).orElse(-1L) == startMillis)
+				.orElse(null);
+	}
+
+	private static int killTree(ProcessHandle root) {
+		// Collect descendants first; they lose their link to the root once it dies
+		List<ProcessHandle> tree = root.descendants().collect(Collectors.toList());
+		tree.add(0, root);
+		int killed = 0;
+		for (ProcessHandle process : tree) {
+			if (process.isAlive() && process.destroyForcibly()) {
+				killed++;
+			}
+		}
+		return killed;
+	}
+
+	private static final class Launch {
+		final List<ProcessHandle> processes;
+		final Path pidFile;
+		final URL serviceUrl;
+
+		Launch(List<ProcessHandle> processes, Path pidFile, URL serviceUrl) {
+			this.processes = processes;
+			this.pidFile = pidFile;
+			this.serviceUrl = serviceUrl;
+		}
+
+		// Waits for each process to exit on its own until the deadline (a System.nanoTime value), then kills it
+		void kill(long deadline) {
+			for (ProcessHandle process : processes) {
+				try {
+					long remaining = deadline - System.nanoTime();
+					if (remaining > 0) {
+						process.onExit().get(remaining, TimeUnit.NANOSECONDS);
+					}
+				} catch (TimeoutException | ExecutionException e) {
+					// killed below
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				if (process.isAlive()) {
+					killTree(process);
+				}
+			}
+		}
+
+		void forget() {
+			if (pidFile != null) {
+				try {
+					Files.deleteIfExists(pidFile);
+				} catch (IOException e) {
+					System.err.println("Could not delete " + pidFile + ": " + e.getMessage());
+				}
+			}
+		}
+	}
+}
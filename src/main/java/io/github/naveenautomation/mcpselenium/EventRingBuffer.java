@@ -0,0 +1,124 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-capacity ring buffer of browser events (console messages, script errors, network activity) for one session.
+ *
+ * Slots are preallocated parallel arrays, so recording an event stores a few primitives and one string reference
+ * without allocating. When the buffer is full the oldest event is overwritten and counted as dropped. Every event
+ * gets a sequence number that readers use as a cursor.
+ */
+final class EventRingBuffer {
+	static final byte KIND_CONSOLE = 0;
+	static final byte KIND_NETWORK = 1;
+
+	static final byte LEVEL_DEBUG = 0;
+	static final byte LEVEL_INFO = 1;
+	static final byte LEVEL_WARN = 2;
+	static final byte LEVEL_ERROR = 3;
+
+	private static final String[] KIND_NAMES = { "console", "network" };
+	private static final String[] LEVEL_NAMES = { "debug", "info", "warn", "error" };
+
+	// Longer messages are cut so a single event can't pin a large string
+	private static final int MAX_TEXT_LENGTH = 2000;
+
+	private final int capacity;
+	private final long[] sequences;
+	private final long[] timestamps;
+	private final byte[] kinds;
+	private final byte[] levels;
+	private final String[] texts;
+
+	private long nextSequence = 1;
+	private long dropped;
+	private long truncated;
+
+	EventRingBuffer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		}
+		this.capacity = capacity;
+		this.sequences = new long[capacity];
+		this.timestamps = new long[capacity];
+		this.kinds = new byte[capacity];
+		this.levels = new byte[capacity];
+		this.texts = new String[capacity];
+	}
+
+	synchronized void record(byte kind, byte level, long timestamp, String text) {
+		if (text != null && text.length() > MAX_TEXT_LENGTH) {
+			text = text.substring(0, MAX_TEXT_LENGTH);
+			truncated++;
+		}
+		long sequence = nextSequence++;
+		int slot = (int) (sequence % capacity);
+		if (sequences[slot] != 0) {
+			dropped++;
+		}
+		sequences[slot] = sequence;
+		timestamps[slot] = timestamp;
+		kinds[slot] = kind;
+		levels[slot] = level;
+		texts[slot] = text;
+	}
+
+	/**
+	 * Events with a sequence number greater than {@code since}, oldest first, matching the kind mask (bit per kind)
+	 * and minimum level, up to {@code limit} events.
+	 */
+	synchronized Slice read(long since, int kindMask, byte minLevel, int limit) {
+		long oldest = Math.max(1, nextSequence - capacity);
+		long from = Math.max(since + 1, oldest);
+		long missed = Math.max(0, oldest - (since + 1));
+
+		List<String> lines = new ArrayList<>();
+		long cursor = Math.max(since, from - 1);
+		for (long sequence = from; sequence < nextSequence && lines.size() < limit; sequence++) {
+			int slot = (int) (sequence % capacity);
+			cursor = sequence;
+			if ((kindMask & (1 << kinds[slot])) == 0 || levels[slot] < minLevel) {
+				continue;
+			}
+			lines.add(String.format("#%d %tT.%<tL [%s] %s: %s", sequence, timestamps[slot], LEVEL_NAMES[levels[slot]],
+					KIND_NAMES[kinds[slot]], texts[slot]));
+		}
+		return new Slice(lines, cursor, missed, dropped, truncated);
+	}
+
+	static int kindMask(String kind) {
+		for (int i = 0; i < KIND_NAMES.length; i++) {
+			if (KIND_NAMES[i].equalsIgnoreCase(kind)) {
+				return 1 << i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown log kind: " + kind);
+	}
+
+	static byte level(String level) {
+		for (byte i = 0; i < LEVEL_NAMES.length; i++) {
+			if (LEVEL_NAMES[i].equalsIgnoreCase(level)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Unknown log level: " + level);
+	}
+
+	static final class Slice {
+		final List<String> lines;
+		final long cursor;
+		final long missed;
+		final long dropped;
+		final long truncated;
+
+		Slice(List<String> lines, long cursor, long missed, long dropped, long truncated) {
+			this.lines = lines;
+			this.cursor = cursor;
+			this.missed = missed;
+			this.dropped = dropped;
+			this.truncated = truncated;
+		}
+	}
+}
@@ -0,0 +1,130 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs one step per session concurrently, for the fan_out tool.
+ *
+ * At most {@code concurrency} steps run at a time, and each has {@code timeoutMillis} from when it starts. A step
+ * still running at its deadline is interrupted and reported as timed out, and its slot goes to the next session; a
+ * late result from it is ignored. An interrupt can't stop a driver command already on the wire, so the step may keep
+ * running after {@link #run} returns; the caller must fence its session (the server holds a per-session lock).
+ */
+final class FanOutRunner {
+	enum Status {
+		COMPLETED, FAILED, TIMED_OUT
+	}
+
+	private final ExecutorService threads = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "fan-out");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Runs the step for every session and returns the results in the order of {@code sessionIds}.
+	 */
+	<T> List<Result<T>> run(List<String> sessionIds, int concurrency, long timeoutMillis, Function<String, T> step)
+			throws InterruptedException {
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		List<Result<T>> results = new ArrayList<>();
+		Deque<Result<T>> waiting = new ArrayDeque<>();
+		for (String sessionId : sessionIds) {
+			Result<T> result = new Result<>(sessionId);
+			results.add(result);
+			waiting.add(result);
+		}
+
+		// Workers hand back their outcome here; only this thread writes the results
+		BlockingQueue<Outcome<T>> finished = new LinkedBlockingQueue<>();
+		List<Result<T>> running = new ArrayList<>();
+		while (!waiting.isEmpty() || !running.isEmpty()) {
+			while (running.size() < concurrency && !waiting.isEmpty()) {
+				Result<T> result = waiting.poll();
+				result.startNanos = System.nanoTime();
+				result.future = threads.submit(() -> {
+					Outcome<T> outcome = new Outcome<>(result);
+					try {
+						outcome.value = step.apply(result.sessionId);
+					} catch (RuntimeException e) {
+						outcome.error = e;
+					}
+					outcome.endNanos = System.nanoTime();
+					finished.add(outcome);
+				});
+				running.add(result);
+			}
+
+			long nextDeadline = Long.MAX_VALUE;
+			for (Result<T> result : running) {
+				nextDeadline = Math.min(nextDeadline, result.startNanos + timeoutNanos);
+			}
+			Outcome<T> outcome = finished.poll(Math.max(0, nextDeadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			while (outcome != null) {
+				if (running.remove(outcome.result)) {
+					outcome.result.complete(outcome);
+				}
+				outcome = finished.poll();
+			}
+
+			long now = System.nanoTime();
+			for (Iterator<Result<T>> it = running.iterator(); it.hasNext();) {
+				Result<T> result = it.next();
+				if (now - result.startNanos >= timeoutNanos) {
+					result.future.cancel(true);
+					result.status = Status.TIMED_OUT;
+					result.elapsedNanos = now - result.startNanos;
+					it.remove();
+				}
+			}
+		}
+		return results;
+	}
+
+	static final class Result<T> {
+		final String sessionId;
+		Status status;
+		T value;
+		RuntimeException error;
+		long elapsedNanos;
+		private long startNanos;
+		private Future<?> future;
+
+		private Result(String sessionId) {
+			this.sessionId = sessionId;
+		}
+
+		private void complete(Outcome<T> outcome) {
+			status = outcome.error == null ? Status.COMPLETED : Status.FAILED;
+			value = outcome.value;
+			error = outcome.error;
+			elapsedNanos = outcome.endNanos - startNanos;
+		}
+
+		long elapsedMillis() {
+			return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+		}
+	}
+
+	private static final class Outcome<T> {
+		final Result<T> result;
+		T value;
+		RuntimeException error;
+		long endNanos;
+
+		Outcome(Result<T> result) {
+			this.result = result;
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local static HTML server for load tests and benchmarks, so they run fully offline. Serves the bundled
+ * {@code fixtures/} pages, or the files of a directory when one is given.
+ */
+final class FixtureServer implements AutoCloseable {
+	private static final String FIXTURE_RESOURCES = "fixtures/";
+	private static final int MAX_AGE_SECONDS = 60;
+
+	private final HttpServer server;
+	private final Path directory;
+
+	private FixtureServer(HttpServer server, Path directory) {
+		this.server = server;
+		this.directory = directory;
+	}
+
+	/**
+	 * Starts the server on a free loopback port. {@code directory} may be null to serve the bundled fixtures.
+	 */
+	static FixtureServer start(Path directory) throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		FixtureServer fixtures = new FixtureServer(server,
+				directory != null ? directory.toAbsolutePath().normalize() : null);
+		server.createContext("/", fixtures::handle);
+		server.setExecutor(Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "fixture-server");
+			thread.setDaemon(true);
+			return thread;
+		}));
+		server.start();
+		return fixtures;
+	}
+
+	String baseUrl() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			String path = exchange.getRequestURI().getPath().replaceFirst("^/+", "");
+			if (path.isEmpty()) {
+				path = "index.html";
+			}
+			byte[] body = path.contains("..") ? null : read(path);
+			if (body == null) {
+				exchange.sendResponseHeaders(404, -1);
+				return;
+			}
+			// Validators and a short max-age make the fixtures a realistic origin for the cache proxy
+			String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "-" + body.length + "\"";
+			exchange.getResponseHeaders().set("ETag", etag);
+			exchange.getResponseHeaders().set("Cache-Control", "max-age=" + MAX_AGE_SECONDS);
+			if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+				exchange.sendResponseHeaders(304, -1);
+				return;
+			}
+			exchange.getResponseHeaders().set("Content-Type", contentType(path));
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private byte[] read(String path) throws IOException {
+		if (directory != null) {
+			Path file = directory.resolve(path).normalize();
+			return file.startsWith(directory) && Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+		}
+		try (InputStream in = FixtureServer.class.getResourceAsStream(FIXTURE_RESOURCES + path)) {
+			return in != null ? in.readAllBytes() : null;
+		}
+	}
+
+	private static String contentType(String path) {
+		if (path.endsWith(".html")) {
+			return "text/html; charset=utf-8";
+		} else if (path.endsWith(".js")) {
+			return "application/javascript";
+		} else if (path.endsWith(".css")) {
+			return "text/css";
+		} else if (path.endsWith(".json")) {
+			return "application/json";
+		} else if (path.endsWith(".svg")) {
+			return "image/svg+xml";
+		} else if (path.endsWith(".png")) {
+			return "image/png";
+		}
+		return "application/octet-stream";
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+}
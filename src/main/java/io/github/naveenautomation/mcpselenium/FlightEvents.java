@@ -0,0 +1,145 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder events emitted by the server, so a recording shows where a slow tool call spent its time next
+ * to GC, thread and socket activity.
+ *
+ * Callers create an event, {@code begin()} it, and after the work call {@code end()} and set fields only if
+ * {@code shouldCommit()} is true. With no recording running the events are disabled and that check is all they cost.
+ *
+ * Event settings are in the bundled {@code mcp-selenium.jfc}. {@code -Dmcp.jfr.file=<path>} starts a recording at
+ * server start with the JDK's default settings plus those, written to the path when the JVM exits.
+ */
+final class FlightEvents {
+	private static final String SETTINGS_RESOURCE = "mcp-selenium.jfc";
+	private static final String CATEGORY = "MCP Selenium";
+
+	private FlightEvents() {
+	}
+
+	/**
+	 * Starts the recording requested by {@code mcp.jfr.file}, if any. {@code mcp.jfr.settings} picks the JDK
+	 * configuration the bundled settings are layered on ({@code default} or {@code profile}).
+	 */
+	static Recording startFromSystemProperties() throws IOException, ParseException {
+		String file = System.getProperty("mcp.jfr.file");
+		if (file == null || file.isEmpty()) {
+			return null;
+		}
+		Map<String, String> settings = new HashMap<>(
+				Configuration.getConfiguration(System.getProperty("mcp.jfr.settings", "default")).getSettings());
+		settings.putAll(bundledConfiguration().getSettings());
+
+		Path destination = Paths.get(file).toAbsolutePath();
+		Recording recording = new Recording(settings);
+		recording.setName("mcp-selenium");
+		recording.setToDisk(true);
+		recording.setDestination(destination);
+		recording.setDumpOnExit(true);
+		recording.start();
+		System.err.println("Flight recording started, written to " + destination + " on exit");
+		return recording;
+	}
+
+	static Configuration bundledConfiguration() throws IOException, ParseException {
+		try (InputStream in = FlightEvents.class.getResourceAsStream(SETTINGS_RESOURCE)) {
+			if (in == null) {
+				throw new IOException("Missing resource " + SETTINGS_RESOURCE);
+			}
+			try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+				return Configuration.create(reader);
+			}
+		}
+	}
+
+	@Name("io.github.naveenautomation.mcpselenium.ToolCall")
+	@Label("Tool Call")
+	@Description("One tool call, from reading the request to writing the response")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class ToolCall extends Event {
+		@Label("Tool")
+		String tool;
+
+		@Label("Tool Call ID")
+		String callId;
+
+		@Label("Session")
+		String session;
+
+		@Label("Failed")
+		boolean failed;
+	}
+
+	@Name("io.github.naveenautomation.mcpselenium.Wait")
+	@Label("Wait")
+	@Description("Time spent in WebDriverWait.until for an element condition")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Wait extends Event {
+		@Label("Locator")
+		String locator;
+
+		@Label("Timeout")
+		@Timespan(Timespan.MILLISECONDS)
+		long timeout;
+
+		@Label("Fail Fast")
+		boolean failFast;
+
+		@Label("Satisfied")
+		boolean satisfied;
+	}
+
+	@Name("io.github.naveenautomation.mcpselenium.DriverCommand")
+	@Label("Driver Command")
+	@Description("Round trip of one WebDriver command to the driver binary")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class DriverCommand extends Event {
+		@Label("Command")
+		String command;
+
+		@Label("WebDriver Session")
+		String driverSession;
+
+		@Label("Status")
+		int status;
+	}
+
+	@Name("io.github.naveenautomation.mcpselenium.Screenshot")
+	@Label("Screenshot")
+	@Description("Capturing and encoding a screenshot")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Screenshot extends Event {
+		@Label("Output")
+		String output;
+
+		@Label("Size")
+		@DataAmount
+		long size;
+	}
+}
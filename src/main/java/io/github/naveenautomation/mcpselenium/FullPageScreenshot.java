@@ -0,0 +1,292 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import javax.imageio.ImageIO;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.OutputType;
+import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.firefox.HasFullPageScreenshot;
+
+/**
+ * Full-page screenshots without resizing the window.
+ *
+ * Firefox captures the whole page natively. Otherwise the page is scrolled one viewport at a time and each viewport
+ * screenshot (tile) is appended row by row to a PNG streamed to disk, so memory holds one decoded tile however long
+ * the page is. Fixed and sticky elements are hidden after the first tile so headers aren't repeated down the image.
+ * Heights are CSS pixels; the image itself is in device pixels.
+ */
+final class FullPageScreenshot {
+	private static final String MEASURE_SCRIPT = "var d = document.documentElement, b = document.body;"
+			+ "return [window.scrollX, window.scrollY, window.innerHeight,"
+			+ " Math.max(d.scrollHeight, b ? b.scrollHeight : 0)];";
+	// Resolves after the next frame, or after 100 ms in windows that don't paint frames (e.g. in the background)
+	private static final String SCROLL_SCRIPT = "var done = arguments[arguments.length - 1], called = false;"
+			+ "function finish() { if (!called) { called = true; done(window.scrollY); } }"
+			+ "window.scrollTo(0, arguments[0]);"
+			+ "requestAnimationFrame(function () { requestAnimationFrame(finish); });"
+			+ "setTimeout(finish, 100);";
+	private static final String HIDE_FIXED_SCRIPT = "var hidden = [];"
+			+ "document.querySelectorAll('body *').forEach(function (e) {"
+			+ " var p = getComputedStyle(e).position;"
+			+ " if ((p === 'fixed' || p === 'sticky') && getComputedStyle(e).visibility !== 'hidden') {"
+			+ "  hidden.push([e, e.style.visibility]); e.style.visibility = 'hidden'; } });"
+			+ "window.__mcpHiddenFixed = hidden;";
+	private static final String RESTORE_SCRIPT = "(window.__mcpHiddenFixed || []).forEach(function (h) {"
+			+ " h[0].style.visibility = h[1]; });"
+			+ "delete window.__mcpHiddenFixed; window.scrollTo(arguments[0], arguments[1]);";
+
+	private FullPageScreenshot() {
+	}
+
+	/**
+	 * Writes a PNG of the page, at most {@code maxHeight} CSS pixels tall, to {@code output}.
+	 */
+	static Result capture(WebDriver driver, Path output, long maxHeight) throws IOException {
+		JavascriptExecutor js = (JavascriptExecutor) driver;
+		List<?> metrics = (List<?>) js.executeScript(MEASURE_SCRIPT);
+		long scrollX = ((Number) metrics.get(0)).longValue();
+		long scrollY = ((Number) metrics.get(1)).longValue();
+		long viewportHeight = ((Number) metrics.get(2)).longValue();
+		long pageHeight = ((Number) metrics.get(3)).longValue();
+		long height = Math.min(pageHeight, maxHeight);
+		if (viewportHeight < 1 || height < 1) {
+			// e.g. a minimized window; there is nothing to tile and no scale to derive
+			throw new IOException("Cannot capture the full page: viewport height is " + viewportHeight
+					+ " and page height is " + pageHeight + " CSS pixels");
+		}
+
+		if (driver instanceof HasFullPageScreenshot && pageHeight <= maxHeight) {
+			byte[] png = ((HasFullPageScreenshot) driver).getFullPageScreenshotAs(OutputType.BYTES);
+			Files.write(output, png);
+			ByteBuffer header = ByteBuffer.wrap(png, 16, 8);
+			return new Result("native", header.getInt(), header.getInt(), 1, false);
+		}
+
+		try {
+			return captureTiles(driver, js, output, viewportHeight, height, pageHeight > maxHeight);
+		} finally {
+			js.executeScript(RESTORE_SCRIPT, scrollX, scrollY);
+		}
+	}
+
+	private static Result captureTiles(WebDriver driver, JavascriptExecutor js, Path output, long viewportHeight,
+			long height, boolean truncated) throws IOException {
+		long scroll = scrollTo(js, 0);
+		BufferedImage tile = captureViewport(driver);
+		double scale = tile.getHeight() / (double) viewportHeight;
+		int width = tile.getWidth();
+		int rows = (int) Math.round(height * scale);
+		if (width < 1 || rows < 1) {
+			throw new IOException("The viewport screenshot is empty (" + width + "x" + tile.getHeight() + ")");
+		}
+
+		int tiles = 0;
+		try (PngWriter png = new PngWriter(output, width, rows)) {
+			while (true) {
+				tiles++;
+				// The browser clamps the last scroll, so the tile may start above the rows still missing
+				int tileTop = (int) Math.round(scroll * scale);
+				int from = png.rowsWritten() - tileTop;
+				int to = Math.min(tile.getHeight(), rows - tileTop);
+				if (from < 0 || from >= to) {
+					break;
+				}
+				png.writeRows(tile, from, to);
+				if (png.rowsWritten() >= rows) {
+					break;
+				}
+				if (tiles == 1) {
+					js.executeScript(HIDE_FIXED_SCRIPT);
+				}
+				tile = null;
+				long previous = scroll;
+				scroll = scrollTo(js, previous + viewportHeight);
+				if (scroll <= previous) {
+					// The page got shorter while scrolling; keep what was captured
+					truncated = true;
+					break;
+				}
+				tile = captureViewport(driver);
+			}
+			if (png.rowsWritten() == 0) {
+				throw new IOException("No rows could be captured from the page");
+			}
+			return new Result("tiles", width, png.rowsWritten(), tiles, truncated || png.rowsWritten() < rows);
+		}
+	}
+
+	private static long scrollTo(JavascriptExecutor js, long y) {
+		return ((Number) js.executeAsyncScript(SCROLL_SCRIPT, y)).longValue();
+	}
+
+	private static BufferedImage captureViewport(WebDriver driver) throws IOException {
+		byte[] png = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+		if (image == null) {
+			throw new IOException("Could not decode the viewport screenshot");
+		}
+		return image;
+	}
+
+	static final class Result {
+		final String method;
+		final int width;
+		final int height;
+		final int tiles;
+		final boolean truncated;
+
+		Result(String method, int width, int height, int tiles, boolean truncated) {
+			this.method = method;
+			this.width = width;
+			this.height = height;
+			this.tiles = tiles;
+			this.truncated = truncated;
+		}
+
+		String describe() {
+			return width + "x" + height + (tiles > 1 ? ", " + tiles + " tiles" : "") + (truncated ? ", truncated" : "")
+					+ ("native".equals(method) ? ", native" : "");
+		}
+	}
+
+	/**
+	 * Minimal streaming PNG encoder (8-bit RGB, Sub filter). Rows are deflated straight into IDAT chunks on disk;
+	 * if fewer rows than announced are written, the header is patched on close.
+	 */
+	private static final class PngWriter implements Closeable {
+		private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+		private static final int IDAT_SIZE = 64 * 1024;
+
+		private final FileChannel channel;
+		private final int width;
+		private final Deflater compressor = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		private final DeflaterOutputStream deflater;
+		private final byte[] row;
+		private final int[] pixels;
+		private int rowsWritten;
+
+		PngWriter(Path file, int width, int height) throws IOException {
+			this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			this.width = width;
+			this.row = new byte[1 + width * 3];
+			this.pixels = new int[width];
+			write(ByteBuffer.wrap(SIGNATURE));
+			writeChunk("IHDR", header(height));
+			this.deflater = new DeflaterOutputStream(new IdatStream(), compressor, IDAT_SIZE);
+		}
+
+		int rowsWritten() {
+			return rowsWritten;
+		}
+
+		void writeRows(BufferedImage image, int from, int to) throws IOException {
+			int copyWidth = Math.min(width, image.getWidth());
+			for (int y = from; y < to; y++) {
+				image.getRGB(0, y, copyWidth, 1, pixels, 0, width);
+				// A narrower tile (e.g. a scrollbar appeared) is padded with white
+				for (int x = copyWidth; x < width; x++) {
+					pixels[x] = 0xffffffff;
+				}
+				row[0] = 1; // Sub: each byte minus the same channel of the pixel to its left
+				int previous = 0;
+				for (int x = 0; x < width; x++) {
+					int rgb = pixels[x];
+					int i = 1 + x * 3;
+					row[i] = (byte) ((rgb >> 16) - (previous >> 16));
+					row[i + 1] = (byte) ((rgb >> 8) - (previous >> 8));
+					row[i + 2] = (byte) (rgb - previous);
+					previous = rgb;
+				}
+				deflater.write(row);
+				rowsWritten++;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				deflater.close();
+				writeChunk("IEND", new byte[0]);
+				// Rewrite the header in place if the image came out shorter than announced
+				channel.position(SIGNATURE.length);
+				writeChunk("IHDR", header(rowsWritten));
+			} finally {
+				compressor.end();
+				channel.close();
+			}
+		}
+
+		private byte[] header(int height) {
+			return ByteBuffer.allocate(13).putInt(width).putInt(height)
+					.put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0).array();
+		}
+
+		private void writeChunk(String type, byte[] data) throws IOException {
+			byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+			CRC32 crc = new CRC32();
+			crc.update(typeBytes);
+			crc.update(data);
+			ByteBuffer chunk = ByteBuffer.allocate(12 + data.length);
+			chunk.putInt(data.length).put(typeBytes).put(data).putInt((int) crc.getValue());
+			chunk.flip();
+			write(chunk);
+		}
+
+		private void write(ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+
+		// Collects deflated bytes and writes them out as IDAT chunks
+		private final class IdatStream extends OutputStream {
+			private final ByteArrayOutputStream pending = new ByteArrayOutputStream(IDAT_SIZE);
+
+			@Override
+			public void write(int b) throws IOException {
+				pending.write(b);
+				flushIfFull();
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				pending.write(b, off, len);
+				flushIfFull();
+			}
+
+			@Override
+			public void close() throws IOException {
+				if (pending.size() > 0) {
+					writeChunk("IDAT", pending.toByteArray());
+					pending.reset();
+				}
+			}
+
+			private void flushIfFull() throws IOException {
+				if (pending.size() >= IDAT_SIZE) {
+					writeChunk("IDAT", pending.toByteArray());
+					pending.reset();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsDriver;
+
+/**
+ * JavaScript locator strategies (text, ARIA role and shadow-piercing CSS).
+ *
+ * The engine script goes through {@link PinnedScript}. Whether pinning saves resending the source depends on the
+ * driver: Chromium keeps the function in the page and each lookup sends only a short call, while Firefox's pin is
+ * client-side and still sends the full source with every lookup.
+ */
+final class LocatorEngine {
+	private static final PinnedScript SCRIPT = new PinnedScript("locator-engine.js");
+
+	private LocatorEngine() {
+	}
+
+	static By text(String value) {
+		return new ScriptBy("text", value);
+	}
+
+	static By role(String value) {
+		return new ScriptBy("role", value);
+	}
+
+	static By shadowCss(String value) {
+		return new ScriptBy("shadow_css", value);
+	}
+
+	static boolean isScriptLocator(By locator) {
+		return locator instanceof ScriptBy;
+	}
+
+	/**
+	 * Drops the pinned script for a driver that is about to quit.
+	 */
+	static void release(WebDriver driver) {
+		SCRIPT.release(driver);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<WebElement> execute(SearchContext context, String strategy, String value) {
+		WebDriver driver;
+		WebElement scope = null;
+		if (context instanceof WebDriver) {
+			driver = (WebDriver) context;
+		} else if (context instanceof WrapsDriver) {
+			driver = ((WrapsDriver) context).getWrappedDriver();
+			scope = (WebElement) context;
+		} else {
+			throw new IllegalArgumentException("Cannot run locator script from " + context);
+		}
+
+		Object result = SCRIPT.execute(driver, strategy, value, scope);
+		if (result instanceof List) {
+			return new ArrayList<>((List<WebElement>) result);
+		}
+		return Collections.emptyList();
+	}
+
+	private static final class ScriptBy extends By {
+		private final String strategy;
+		private final String value;
+
+		ScriptBy(String strategy, String value) {
+			this.strategy = strategy;
+			this.value = value;
+		}
+
+		@Override
+		public List<WebElement> findElements(SearchContext context) {
+			return execute(context, strategy, value);
+		}
+
+		@Override
+		public String toString() {
+			return "By." + strategy + ": " + value;
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Synchronous tool calls against one server process, for the headless tools (load generator, benchmark). Calls
+ * may be made from several threads; responses are matched to their calls by tool_call_id.
+ */
+final class McpConnection {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	final int index;
+	private final long callTimeoutMillis;
+	private final Map<String, CompletableFuture<JsonNode>> pending = new ConcurrentHashMap<>();
+	private final CompletableFuture<JsonNode> serverInfo = new CompletableFuture<>();
+	private final AtomicInteger callIds = new AtomicInteger();
+	private McpServerProcess process;
+
+	private McpConnection(int index, long callTimeoutMillis) {
+		this.index = index;
+		this.callTimeoutMillis = callTimeoutMillis;
+	}
+
+	/**
+	 * Starts a server and waits for its server info line.
+	 */
+	static McpConnection open(int index, List<String> command, long callTimeoutMillis) throws Exception {
+		McpConnection connection = new McpConnection(index, callTimeoutMillis);
+		connection.process = McpServerProcess.start(command, connection::onLine,
+				line -> System.err.println("[server " + index + "] " + line),
+				() -> connection.pending.values().forEach(f -> f.completeExceptionally(
+						new IllegalStateException("server " + index + " exited"))));
+		connection.serverInfo.get(60, TimeUnit.SECONDS);
+		return connection;
+	}
+
+	/**
+	 * First text of a tool response.
+	 */
+	static String text(JsonNode response) {
+		return response.path("content").path(0).path("text").asText("");
+	}
+
+	static boolean isError(JsonNode response) {
+		String text = text(response);
+		return text.startsWith("Error") || text.startsWith("Unknown tool") || text.startsWith("No active");
+	}
+
+	private void onLine(String line) {
+		try {
+			JsonNode message = objectMapper.readTree(line);
+			if (!serverInfo.isDone()) {
+				serverInfo.complete(message);
+				return;
+			}
+			CompletableFuture<JsonNode> future = pending.remove(message.path("tool_call_id").asText());
+			if (future != null) {
+				future.complete(message);
+			}
+		} catch (IOException e) {
+			System.err.println("[server " + index + "] unparseable line: " + line);
+		}
+	}
+
+	JsonNode call(String name, JsonNode params) throws Exception {
+		String id = "call-" + index + "-" + callIds.incrementAndGet();
+		ObjectNode request = objectMapper.createObjectNode();
+		request.put("type", "tool_call");
+		request.put("tool_call_id", id);
+		request.put("name", name);
+		request.set("params", params.isMissingNode() ? objectMapper.createObjectNode() : params);
+
+		CompletableFuture<JsonNode> future = new CompletableFuture<>();
+		pending.put(id, future);
+		process.send(request.toString());
+		try {
+			return future.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+		} finally {
+			pending.remove(id);
+		}
+	}
+
+	/**
+	 * The server process, e.g. to measure the browsers under it.
+	 */
+	ProcessHandle processHandle() {
+		return process.toHandle();
+	}
+
+	void close() {
+		try {
+			process.stop();
+		} catch (IOException e) {
+			System.err.println("Error stopping server " + index + ": " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Headless load generator for the MCP Selenium server.
+ *
+ * Starts N server processes, runs a scripted scenario against each of them concurrently at a target total call rate,
+ * matches responses by tool_call_id and prints throughput and latency percentiles per tool. Latency is measured from
+ * the time a call was scheduled, so a server that falls behind shows up in the numbers.
+ *
+ * <pre>
+ * java -cp target/mcp-selenium-0.1.0-jar-with-dependencies.jar io.github.naveenautomation.mcpselenium.McpLoadGenerator \
+ *     --servers 4 --rate 20 --duration 60 [--scenario my-scenario.json] [--fixtures dir] [--jar server.jar] \
+ *     [--jvm-opt -Dmcp.wait.failFast=true] [--call-timeout 30000]
+ * </pre>
+ *
+ * A scenario is JSON with "setup", "steps" and "teardown" arrays of {"name", "params"} tool calls. Setup and teardown
+ * run once per server; steps are repeated until the duration is over. "${fixture}" is replaced by the base URL of
+ * the local fixture server.
+ */
+public class McpLoadGenerator {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final String DEFAULT_SCENARIO = "fixtures/load-scenario.json";
+
+	private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+	private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+	public static void main(String[] args) {
+		try {
+			new McpLoadGenerator().run(Options.parse(args));
+		} catch (Exception e) {
+			System.err.println("Load test failed: " + e.getMessage());
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private void run(Options options) throws Exception {
+		try (FixtureServer fixtures = FixtureServer.start(options.fixtures)) {
+			String scenarioText = options.scenario != null
+					? new String(Files.readAllBytes(options.scenario), StandardCharsets.UTF_8)
+					: readResource(DEFAULT_SCENARIO);
+			JsonNode scenario = objectMapper.readTree(scenarioText.replace("${fixture}", fixtures.baseUrl()));
+
+			List<String> command = options.jar != null ? McpServerProcess.jarCommand(options.jar)
+					: McpServerProcess.classpathCommand(options.jvmOptions);
+
+			System.out.println("Fixtures at " + fixtures.baseUrl() + ", starting " + options.servers + " server(s)");
+			List<McpConnection> connections = new ArrayList<>();
+			try {
+				for (int i = 0; i < options.servers; i++) {
+					connections.add(McpConnection.open(i, command, options.callTimeoutMillis));
+				}
+
+				long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) * options.servers / options.rate);
+				CountDownLatch ready = new CountDownLatch(connections.size());
+				CountDownLatch go = new CountDownLatch(1);
+				CountDownLatch done = new CountDownLatch(connections.size());
+				long[] window = new long[2];
+
+				for (McpConnection connection : connections) {
+					new Thread(() -> {
+						boolean setUp = false;
+						try {
+							runSetup(connection, scenario.path("setup"));
+							setUp = true;
+							ready.countDown();
+							go.await();
+							long offset = periodNanos * connection.index / options.servers;
+							runSteps(connection, scenario.path("steps"), window[0] + offset, window[1], periodNanos);
+							runUnrecorded(connection, scenario.path("teardown"));
+						} catch (Exception e) {
+							System.err.println("Server " + connection.index + " failed: " + e.getMessage());
+						} finally {
+							if (!setUp) {
+								ready.countDown();
+							}
+							done.countDown();
+						}
+					}, "load-" + connection.index).start();
+				}
+
+				// Steps start together once every server finished its setup
+				ready.await();
+				window[0] = System.nanoTime();
+				window[1] = window[0] + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+				go.countDown();
+				done.await();
+				report(System.nanoTime() - window[0]);
+			} finally {
+				for (McpConnection connection : connections) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	private void runSetup(McpConnection connection, JsonNode calls) throws Exception {
+		for (JsonNode call : calls) {
+			JsonNode response = connection.call(call.path("name").asText(), call.path("params"));
+			if (McpConnection.isError(response)) {
+				throw new IllegalStateException("setup call " + call.path("name").asText() + " failed: "
+						+ McpConnection.text(response));
+			}
+		}
+	}
+
+	private void runUnrecorded(McpConnection connection, JsonNode calls) throws Exception {
+		for (JsonNode call : calls) {
+			connection.call(call.path("name").asText(), call.path("params"));
+		}
+	}
+
+	private void runSteps(McpConnection connection, JsonNode steps, long start, long end, long periodNanos)
+			throws Exception {
+		if (steps.size() == 0) {
+			return;
+		}
+		// Servers start staggered across one period so they don't fire in lockstep
+		long next = start;
+		for (int i = 0; next < end; i++) {
+			long wait = next - System.nanoTime();
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			JsonNode step = steps.get(i % steps.size());
+			String tool = step.path("name").asText();
+			long scheduled = next;
+			boolean failed;
+			try {
+				failed = McpConnection.isError(connection.call(tool, step.path("params")));
+			} catch (TimeoutException | ExecutionException e) {
+				failed = true;
+			}
+			List<Long> samples = latencies.computeIfAbsent(tool, t -> new ArrayList<>());
+			synchronized (samples) {
+				samples.add(System.nanoTime() - scheduled);
+			}
+			if (failed) {
+				errors.computeIfAbsent(tool, t -> new AtomicInteger()).incrementAndGet();
+			}
+			next += periodNanos;
+		}
+	}
+
+	private void report(long elapsedNanos) {
+		double seconds = elapsedNanos / 1e9;
+		long total = 0;
+		System.out.println();
+		System.out.println(String.format("%-20s %8s %7s %9s %9s %9s %9s %9s", "tool", "calls", "errors", "calls/s",
+				"p50 ms", "p95 ms", "p99 ms", "max ms"));
+		for (Map.Entry<String, List<Long>> entry : new TreeMap<>(latencies).entrySet()) {
+			long[] samples;
+			synchronized (entry.getValue()) {
+				samples = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+			}
+			Arrays.sort(samples);
+			total += samples.length;
+			int failed = errors.getOrDefault(entry.getKey(), new AtomicInteger()).get();
+			System.out.println(String.format("%-20s %8d %7d %9.2f %9.1f %9.1f %9.1f %9.1f", entry.getKey(),
+					samples.length, failed, samples.length / seconds, percentile(samples, 0.50),
+					percentile(samples, 0.95), percentile(samples, 0.99), samples[samples.length - 1] / 1e6));
+		}
+		System.out.println(String.format("%nTotal: %d calls in %.1f s (%.2f calls/s)", total, seconds, total / seconds));
+	}
+
+	// Nearest-rank percentile in milliseconds
+	private static double percentile(long[] sorted, double percentile) {
+		int rank = (int) Math.ceil(percentile * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+	}
+
+	private static String readResource(String name) throws IOException {
+		try (InputStream in = McpLoadGenerator.class.getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + name);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static final class Options {
+		int servers = 1;
+		double rate = 5;
+		long durationSeconds = 30;
+		long callTimeoutMillis = 30000;
+		Path scenario;
+		Path fixtures;
+		String jar;
+		List<String> jvmOptions = new ArrayList<>();
+
+		static Options parse(String[] args) {
+			Options options = new Options();
+			for (int i = 0; i < args.length; i++) {
+				String value = i + 1 < args.length ? args[i + 1] : null;
+				switch (args[i]) {
+				case "--servers":
+					options.servers = Integer.parseInt(value);
+					break;
+				case "--rate":
+					options.rate = Double.parseDouble(value);
+					break;
+				case "--duration":
+					options.durationSeconds = Long.parseLong(value);
+					break;
+				case "--call-timeout":
+					options.callTimeoutMillis = Long.parseLong(value);
+					break;
+				case "--scenario":
+					options.scenario = Paths.get(value);
+					break;
+				case "--fixtures":
+					options.fixtures = Paths.get(value);
+					break;
+				case "--jar":
+					options.jar = value;
+					break;
+				case "--jvm-opt":
+					options.jvmOptions.add(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+				}
+				i++;
+			}
+			if (options.servers < 1 || options.rate <= 0) {
+				throw new IllegalArgumentException("--servers and --rate must be positive");
+			}
+			return options;
+		}
+	}
+}
@@ -5,15 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.openqa.selenium.By;
+import org.openqa.selenium.InvalidSelectorException;
+import org.openqa.selenium.JavascriptException;
 import org.openqa.selenium.OutputType;
+import org.openqa.selenium.Proxy;
 import org.openqa.selenium.TakesScreenshot;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 
@@ -22,16 +31,23 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 
 /**
@@ -43,6 +59,29 @@ import java.util.concurrent.ConcurrentHashMap;
 public class McpSeleniumServer {
 	private static final ObjectMapper objectMapper = new ObjectMapper();
 	private static final Map<String, WebDriver> drivers = new ConcurrentHashMap<>();
+	private static final Map<String, CommandLatencyRecorder> commandLatency = new ConcurrentHashMap<>();
+	private static final Map<String, SessionEventCapture> eventCaptures = new ConcurrentHashMap<>();
+	// Reattached sessions that captured logs before the restart; BiDi subscriptions don't survive it
+	private static final Set<String> lostCaptures = ConcurrentHashMap.newKeySet();
+	private static final Map<String, CommandLatencyRecorder> sharedLatency = new ConcurrentHashMap<>();
+	private static final DriverProcesses driverProcesses = DriverProcesses.fromSystemProperties();
+	private static final SharedBrowserPool sharedBrowsers = new SharedBrowserPool(driverProcesses::quit);
+	private static final Map<String, Lock> sessionLocks = new ConcurrentHashMap<>();
+	private static final ProfileTemplates profileTemplates = ProfileTemplates.fromSystemProperties();
+	private static final PinnedScript fillFormScript = new PinnedScript("fill-form.js");
+	private static final ArtifactSpool artifacts = ArtifactSpool.fromSystemProperties();
+	private static final PerformanceProfiles performanceProfiles = PerformanceProfiles.load();
+	private static final SessionCheckpoints checkpoints = SessionCheckpoints.fromSystemProperties();
+	private static final int ARTIFACT_READ_LIMIT = 4 * 1024 * 1024;
+	// Ring buffer slots are preallocated and each can hold a 2000-character message
+	private static final int MAX_LOG_CAPACITY = 50_000;
+	private static final FanOutRunner fanOutRunner = new FanOutRunner();
+	private static final Set<String> FAN_OUT_TOOLS = new TreeSet<>(Arrays.asList("navigate", "find_element",
+			"click_element", "send_keys", "fill_form", "get_element_text", "hover", "drag_and_drop", "double_click",
+			"right_click", "press_key", "upload_file", "take_screenshot", "get_logs", "get_command_latency"));
+	// The session a fan_out thread acts on in place of the current session
+	private static final ThreadLocal<String> boundSession = new ThreadLocal<>();
+	private static CachingProxy cacheProxy = null;
 	private static String currentSession = null;
 
 	// Server info
@@ -53,17 +92,53 @@ public class McpSeleniumServer {
 		try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
 				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(System.out))) {
 
-			// Add shutdown hook for cleanup
+			DriverHttpSettings.applyGlobalDefaults();
+			FlightEvents.startFromSystemProperties();
+
+			// Reattach before reaping, so the browsers still in use are adopted rather than killed
+			if (checkpoints.isEnabled()) {
+				reattachSessions();
+			}
+
+			// Clean up after a previous server that crashed without quitting its browsers
+			if (!"false".equals(System.getProperty("mcp.reapOrphans"))) {
+				int reaped = driverProcesses.reapOrphans();
+				if (reaped > 0) {
+					System.err.println("Killed " + reaped + " orphaned driver/browser process(es)");
+				}
+				int profiles = profileTemplates.reapOrphans();
+				if (profiles > 0) {
+					System.err.println("Deleted " + profiles + " orphaned profile clone(s) and unused template(s)");
+				}
+			}
+
+			// Add shutdown hook for cleanup; drivers quit in parallel and hung ones are killed at the deadline
 			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
 				System.err.println("Shutting down MCP Selenium Server...");
+				List<WebDriver> toQuit = new ArrayList<>();
+				Map<String, WebDriver> checkpointed = new HashMap<>();
 				drivers.forEach((sessionId, driver) -> {
-					try {
-						driver.quit();
-					} catch (Exception e) {
-						System.err.println("Error closing session " + sessionId + ": " + e.getMessage());
+					if (checkpoints.contains(sessionId)) {
+						checkpointed.put(sessionId, driver);
+					} else if (!sharedBrowsers.isShared(sessionId)) {
+						toQuit.add(driver);
 					}
 				});
+				// Checkpointed browsers keep running for the next server to reattach to
+				checkpoints.refreshUrls(checkpointed, 2000);
+				checkpointed.values().forEach(driverProcesses::detach);
+				toQuit.addAll(sharedBrowsers.drainHosts());
+				driverProcesses.quitAll(toQuit);
+				drivers.keySet().stream().filter(id -> !checkpointed.containsKey(id))
+						.forEach(profileTemplates::release);
 				drivers.clear();
+				commandLatency.clear();
+				eventCaptures.clear();
+				synchronized (McpSeleniumServer.class) {
+					if (cacheProxy != null) {
+						cacheProxy.close();
+					}
+				}
 			}));
 
 			// Create server info response
@@ -80,6 +155,8 @@ public class McpSeleniumServer {
 			addTool(toolsArray, "find_element", "finds an element", createElementSchema());
 			addTool(toolsArray, "click_element", "clicks an element", createElementSchema());
 			addTool(toolsArray, "send_keys", "sends keys to an element, aka typing", createSendKeysSchema());
+			addTool(toolsArray, "fill_form", "fills many form fields in one step and reports each field's status",
+					createFillFormSchema());
 			addTool(toolsArray, "get_element_text", "gets the text() of an element", createElementSchema());
 			addTool(toolsArray, "hover", "moves the mouse to hover over an element", createElementSchema());
 			addTool(toolsArray, "drag_and_drop", "drags an element and drops it onto another element",
@@ -91,6 +168,18 @@ public class McpSeleniumServer {
 			addTool(toolsArray, "upload_file", "uploads a file using a file input element", createUploadFileSchema());
 			addTool(toolsArray, "take_screenshot", "captures a screenshot of the current page",
 					createTakeScreenshotSchema());
+			addTool(toolsArray, "get_logs", "returns captured console and network events since a cursor",
+					createGetLogsSchema());
+			addTool(toolsArray, "get_proxy_stats",
+					"reports hit ratio and bytes saved by the shared caching proxy", objectMapper.createObjectNode());
+			addTool(toolsArray, "get_command_latency",
+					"reports round-trip latency of WebDriver commands sent by the current session",
+					objectMapper.createObjectNode());
+			addTool(toolsArray, "register_profile_template",
+					"stores a browser profile directory as a named template for start_browser",
+					createRegisterProfileTemplateSchema());
+			addTool(toolsArray, "fan_out", "runs one tool on many sessions at once and reports each session's result",
+					createFanOutSchema());
 			addTool(toolsArray, "close_session", "closes the current browser session", objectMapper.createObjectNode());
 
 			// Send server info
@@ -111,56 +200,24 @@ public class McpSeleniumServer {
 					response.put("type", "tool_response");
 					response.put("tool_call_id", request.get("tool_call_id").asText());
 
-					switch (toolName) {
-					case "start_browser":
-						response.set("content", startBrowser(params));
-						break;
-					case "navigate":
-						response.set("content", navigate(params));
-						break;
-					case "find_element":
-						response.set("content", findElement(params));
-						break;
-					case "click_element":
-						response.set("content", clickElement(params));
-						break;
-					case "send_keys":
-						response.set("content", sendKeys(params));
-						break;
-					case "get_element_text":
-						response.set("content", getElementText(params));
-						break;
-					case "hover":
-						response.set("content", hoverElement(params));
-						break;
-					case "drag_and_drop":
-						response.set("content", dragAndDrop(params));
-						break;
-					case "double_click":
-						response.set("content", doubleClick(params));
-						break;
-					case "right_click":
-						response.set("content", rightClick(params));
-						break;
-					case "press_key":
-						response.set("content", pressKey(params));
-						break;
-					case "upload_file":
-						response.set("content", uploadFile(params));
-						break;
-					case "take_screenshot":
-						response.set("content", takeScreenshot(params));
-						break;
-					case "close_session":
-						response.set("content", closeSession());
-						break;
-					default:
-						response.set("content", createErrorResponse("Unknown tool: " + toolName));
-					}
+					FlightEvents.ToolCall toolCallEvent = new FlightEvents.ToolCall();
+					toolCallEvent.begin();
+
+					response.set("content", callCurrentTool(toolName, params));
 
 					writer.write(response.toString());
 					writer.newLine();
 					writer.flush();
+
+					toolCallEvent.end();
+					if (toolCallEvent.shouldCommit()) {
+						toolCallEvent.tool = toolName;
+						toolCallEvent.callId = request.get("tool_call_id").asText();
+						toolCallEvent.session = currentSession;
+						toolCallEvent.failed = response.path("content").path(0).path("text").asText("")
+								.startsWith("Error");
+						toolCallEvent.commit();
+					}
 				} else if ("resource_request".equals(type)) {
 					String uri = request.get("uri").asText();
 					if (uri.startsWith("browser-status://")) {
@@ -179,6 +236,14 @@ public class McpSeleniumServer {
 						writer.write(response.toString());
 						writer.newLine();
 						writer.flush();
+					} else if (uri.startsWith(ArtifactSpool.URI_PREFIX)) {
+						ObjectNode response = objectMapper.createObjectNode();
+						response.put("type", "resource_response");
+						response.put("request_id", request.get("request_id").asText());
+						response.set("contents", readArtifact(uri, request));
+						writer.write(response.toString());
+						writer.newLine();
+						writer.flush();
 					}
 				}
 			}
@@ -189,10 +254,17 @@ public class McpSeleniumServer {
 	}
 
 	private static WebDriver getDriver() {
-		if (currentSession == null || !drivers.containsKey(currentSession)) {
+		String sessionId = activeSession();
+		if (sessionId == null || !drivers.containsKey(sessionId)) {
 			throw new IllegalStateException("No active browser session");
 		}
-		return drivers.get(currentSession);
+		return drivers.get(sessionId);
+	}
+
+	// The session tools act on: the bound session on a fan_out thread, otherwise the current one
+	private static String activeSession() {
+		String bound = boundSession.get();
+		return bound != null ? bound : currentSession;
 	}
 
 	private static By getLocator(String by, String value) {
@@ -209,65 +281,360 @@ public class McpSeleniumServer {
 			return By.tagName(value);
 		case "class":
 			return By.className(value);
+		case "text":
+			return LocatorEngine.text(value);
+		case "role":
+			return LocatorEngine.role(value);
+		case "shadow_css":
+			return LocatorEngine.shadowCss(value);
 		default:
 			throw new IllegalArgumentException("Unsupported locator strategy: " + by);
 		}
 	}
 
+	/**
+	 * Runs one tool and returns its content. On a fan_out thread the tool acts on the bound session.
+	 */
+	// Tools from the main loop hold the current session's lock, so they never interleave with a fan_out step on the
+	// same browser, including a timed-out step that hasn't stopped yet. fan_out itself takes the locks per session.
+	private static ArrayNode callCurrentTool(String toolName, JsonNode params) {
+		String sessionId = currentSession;
+		if (sessionId == null || "fan_out".equals(toolName)) {
+			return callTool(toolName, params);
+		}
+		Lock lock = sessionLock(sessionId);
+		lock.lock();
+		try {
+			return callTool(toolName, params);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Lock held while a tool drives the session's browser. Sessions on a shared browser use its host lock, since they
+	 * share its current window.
+	 */
+	private static Lock sessionLock(String sessionId) {
+		Lock hostLock = sharedBrowsers.commandLock(sessionId);
+		return hostLock != null ? hostLock : sessionLocks.computeIfAbsent(sessionId, id -> new ReentrantLock());
+	}
+
+	private static ArrayNode callTool(String toolName, JsonNode params) {
+		switch (toolName) {
+		case "start_browser":
+			return startBrowser(params);
+		case "navigate":
+			return navigate(params);
+		case "find_element":
+			return findElement(params);
+		case "click_element":
+			return clickElement(params);
+		case "send_keys":
+			return sendKeys(params);
+		case "fill_form":
+			return fillForm(params);
+		case "get_element_text":
+			return getElementText(params);
+		case "hover":
+			return hoverElement(params);
+		case "drag_and_drop":
+			return dragAndDrop(params);
+		case "double_click":
+			return doubleClick(params);
+		case "right_click":
+			return rightClick(params);
+		case "press_key":
+			return pressKey(params);
+		case "upload_file":
+			return uploadFile(params);
+		case "take_screenshot":
+			return takeScreenshot(params);
+		case "get_logs":
+			return getLogs(params);
+		case "get_proxy_stats":
+			return getProxyStats();
+		case "get_command_latency":
+			return getCommandLatency();
+		case "register_profile_template":
+			return registerProfileTemplate(params);
+		case "close_session":
+			return closeSession();
+		case "fan_out":
+			return fanOut(params);
+		default:
+			return createErrorResponse("Unknown tool: " + toolName);
+		}
+	}
+
+	/**
+	 * Waits for an element condition using the call's timeout. With failFast the wait gives up as soon as the locator
+	 * matches nothing and the page has settled, instead of waiting out the whole timeout.
+	 */
+	private static <T> T waitFor(WebDriver driver, JsonNode params, String by, String value,
+			ExpectedCondition<T> condition) {
+		long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
+		boolean failFast = params.has("failFast") ? params.get("failFast").asBoolean()
+				: Boolean.getBoolean("mcp.wait.failFast");
+
+		FlightEvents.Wait waitEvent = new FlightEvents.Wait();
+		waitEvent.begin();
+		boolean satisfied = false;
+		try {
+			T result;
+			if (!failFast) {
+				WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
+				result = wait.until(condition);
+			} else {
+				long settleWindow = params.has("settleWindow") ? params.get("settleWindow").asLong()
+						: Long.getLong("mcp.wait.settleWindow", 500);
+				result = SettlingWait.until(driver, by, value, getLocator(by, value), condition, timeout,
+						settleWindow);
+			}
+			satisfied = true;
+			return result;
+		} finally {
+			waitEvent.end();
+			if (waitEvent.shouldCommit()) {
+				waitEvent.locator = by + "=" + value;
+				waitEvent.timeout = timeout;
+				waitEvent.failFast = failFast;
+				waitEvent.satisfied = satisfied;
+				waitEvent.commit();
+			}
+		}
+	}
+
 	// Tool implementations
 	private static ArrayNode startBrowser(JsonNode params) {
 		try {
-			String browser = params.get("browser").asText();
+			String browser = params.get("browser").asText().toLowerCase();
 			JsonNode optionsNode = params.has("options") ? params.get("options") : null;
-			boolean headless = optionsNode != null && optionsNode.has("headless")
-					&& optionsNode.get("headless").asBoolean();
-			List<String> arguments = new ArrayList<>();
+			boolean captureLogs = optionsNode != null && optionsNode.has("captureLogs")
+					? optionsNode.get("captureLogs").asBoolean()
+					: Boolean.getBoolean("mcp.logs.capture");
+			JsonNode logCapacityNode = optionsNode != null ? optionsNode.get("logCapacity") : null;
+			if (logCapacityNode != null && !(logCapacityNode.isIntegralNumber() && logCapacityNode.canConvertToInt())) {
+				return createErrorResponse("logCapacity must be a whole number between 1 and " + MAX_LOG_CAPACITY);
+			}
+			int logCapacity = logCapacityNode != null ? logCapacityNode.asInt()
+					: Integer.getInteger("mcp.logs.capacity", 1000);
+			if (logCapacity < 1 || logCapacity > MAX_LOG_CAPACITY) {
+				return createErrorResponse(
+						"logCapacity must be between 1 and " + MAX_LOG_CAPACITY + ", got " + logCapacity);
+			}
+			boolean shared = optionsNode != null && optionsNode.has("shared") ? optionsNode.get("shared").asBoolean()
+					: Boolean.getBoolean("mcp.shared");
+			boolean useCacheProxy = optionsNode != null && optionsNode.has("cacheProxy")
+					? optionsNode.get("cacheProxy").asBoolean()
+					: Boolean.getBoolean("mcp.proxy");
 
-			if (optionsNode != null && optionsNode.has("arguments")) {
-				optionsNode.get("arguments").forEach(arg -> arguments.add(arg.asText()));
+			if (!"chrome".equals(browser) && !"firefox".equals(browser)) {
+				return createErrorResponse("Unsupported browser: " + browser);
 			}
 
-			WebDriver driver;
+			String profileTemplate = optionsNode != null && optionsNode.has("profileTemplate")
+					? optionsNode.get("profileTemplate").asText()
+					: null;
+			if (shared && profileTemplate != null) {
+				return createErrorResponse("Profile templates can't be used with shared sessions");
+			}
 
-			if ("chrome".equalsIgnoreCase(browser)) {
-				ChromeOptions options = new ChromeOptions();
-				if (headless) {
-					options.addArguments("--headless=new");
-				}
-				for (String arg : arguments) {
-					options.addArguments(arg);
+			String sessionId = browser + "_" + UUID.randomUUID().toString().replace("-", "");
+			String proxyAddress = useCacheProxy ? cacheProxy().address() : null;
+			WebDriver driver;
+			CommandLatencyRecorder recorder;
+			String profileNote = "";
+
+			if (shared) {
+				// Sessions with the same launch options share browser processes (and their latency stats)
+				String key = browser + "|" + (optionsNode != null ? optionsNode.path("headless").asBoolean() : false)
+						+ "|" + performanceProfileName(optionsNode)
+						+ "|" + (optionsNode != null ? optionsNode.path("arguments").toString() : "")
+						+ "|" + (optionsNode != null ? optionsNode.path("prefs").toString() : "")
+						+ "|" + (optionsNode != null ? optionsNode.path("capabilities").toString() : "")
+						+ "|" + useCacheProxy;
+				int maxContexts = Integer.getInteger("mcp.shared.maxContexts", 20);
+				recorder = sharedLatency.computeIfAbsent(key, k -> new CommandLatencyRecorder());
+				// Firefox user contexts are created over BiDi
+				boolean webSocketUrl = "firefox".equals(browser);
+				driver = sharedBrowsers.open(sessionId, key, browser, maxContexts,
+						() -> createDriver(browser, optionsNode, webSocketUrl, recorder, null, proxyAddress));
+				if (captureLogs) {
+					System.err.println("Log capture is not available for shared session " + sessionId);
+					captureLogs = false;
 				}
-
-				driver = new ChromeDriver(options);
-			} else if ("firefox".equalsIgnoreCase(browser)) {
-				FirefoxOptions options = new FirefoxOptions();
-				if (headless) {
-					options.addArguments("--headless");
+			} else {
+				recorder = new CommandLatencyRecorder();
+				Path profileDir = null;
+				if (profileTemplate != null) {
+					ProfileTemplates.Clone clone = profileTemplates.cloneFor(profileTemplate, sessionId);
+					profileDir = clone.directory;
+					profileNote = " (profile template " + profileTemplate + ", " + clone.method + ")";
 				}
-				for (String arg : arguments) {
-					options.addArguments(arg);
+				try {
+					driver = createDriver(browser, optionsNode, captureLogs, recorder, profileDir, proxyAddress);
+				} catch (RuntimeException e) {
+					profileTemplates.release(sessionId);
+					throw e;
 				}
+			}
 
-				driver = new FirefoxDriver(options);
-			} else {
-				return createErrorResponse("Unsupported browser: " + browser);
+			String performanceProfile = performanceProfileName(optionsNode);
+			if (performanceProfile != null) {
+				profileNote += " (performance profile " + performanceProfile + ")";
 			}
 
-			String sessionId = browser + "_" + UUID.randomUUID().toString().replace("-", "");
 			drivers.put(sessionId, driver);
+			commandLatency.put(sessionId, recorder);
 			currentSession = sessionId;
 
-			return createTextResponse("Browser started with session_id: " + sessionId);
+			if (captureLogs) {
+				try {
+					eventCaptures.put(sessionId, SessionEventCapture.attach(driver, logCapacity));
+				} catch (Exception e) {
+					System.err.println("Could not capture logs for session " + sessionId + ": " + e.getMessage());
+				}
+			}
+
+			// Sessions tied to this server's shared browsers, profile clones or proxy can't outlive it
+			if (checkpoints.isEnabled() && !shared && profileTemplate == null && !useCacheProxy
+					&& driver instanceof RemoteWebDriver) {
+				checkpoints.save(sessionId, browser, (RemoteWebDriver) driver, driverProcesses.serviceUrl(driver),
+						driverProcesses.pidFile(driver), optionsNode, eventCaptures.containsKey(sessionId));
+			}
+			checkpoints.setCurrent(sessionId);
+
+			return createTextResponse("Browser started with session_id: " + sessionId + profileNote);
 		} catch (Exception e) {
 			return createErrorResponse("Error starting browser: " + e.getMessage());
 		}
 	}
 
+	private static WebDriver createDriver(String browser, JsonNode optionsNode, boolean webSocketUrl,
+			CommandLatencyRecorder recorder, Path profileDir, String proxyAddress) {
+		boolean headless = optionsNode != null && optionsNode.has("headless")
+				&& optionsNode.get("headless").asBoolean();
+		PerformanceProfiles.Settings settings = performanceProfiles.resolve(performanceProfileName(optionsNode),
+				browser, optionsNode);
+		List<String> arguments = settings.arguments();
+
+		ClientConfig clientConfig = DriverHttpSettings.clientConfig(optionsNode, recorder);
+
+		if ("chrome".equals(browser)) {
+			ChromeOptions options = new ChromeOptions();
+			if (headless) {
+				options.addArguments("--headless=new");
+			}
+			for (String arg : arguments) {
+				options.addArguments(arg);
+			}
+			if (profileDir != null) {
+				options.addArguments("--user-data-dir=" + profileDir.toAbsolutePath());
+			}
+			if (!settings.prefs.isEmpty()) {
+				options.setExperimentalOption("prefs", settings.prefs);
+			}
+			settings.capabilities.forEach(options::setCapability);
+			if (proxyAddress != null) {
+				options.setProxy(cacheProxySettings(proxyAddress));
+				// Chrome never proxies loopback hosts unless told to, which would skip local apps
+				options.addArguments("--proxy-bypass-list=<-loopback>");
+			}
+			if (webSocketUrl) {
+				options.setCapability("webSocketUrl", true);
+			}
+
+			return driverProcesses.launch(ChromeDriverService.createDefaultService(),
+					service -> new ChromeDriver(service, options, clientConfig));
+		} else {
+			FirefoxOptions options = new FirefoxOptions();
+			if (headless) {
+				options.addArguments("--headless");
+			}
+			for (String arg : arguments) {
+				options.addArguments(arg);
+			}
+			if (profileDir != null) {
+				// geckodriver uses a -profile directory in place instead of copying it
+				options.addArguments("-profile", profileDir.toAbsolutePath().toString());
+			}
+			settings.prefs.forEach(options::addPreference);
+			settings.capabilities.forEach(options::setCapability);
+			if (proxyAddress != null) {
+				options.setProxy(cacheProxySettings(proxyAddress));
+				options.addPreference("network.proxy.allow_hijacking_localhost", true);
+			}
+			if (webSocketUrl) {
+				options.setCapability("webSocketUrl", true);
+			}
+
+			return driverProcesses.launch(GeckoDriverService.createDefaultService(),
+					service -> new FirefoxDriver(service, options, clientConfig));
+		}
+	}
+
+	/**
+	 * Reattaches to the browsers checkpointed by a previous server that are still running. Sessions whose browser
+	 * is gone are dropped; their processes are left for {@link DriverProcesses#reapOrphans}.
+	 */
+	private static void reattachSessions() {
+		for (SessionCheckpoints.Saved saved : checkpoints.load()) {
+			CommandLatencyRecorder recorder = new CommandLatencyRecorder();
+			try {
+				RemoteWebDriver driver = ReattachedSession.attach(saved.serviceUrl, saved.driverSessionId,
+						saved.capabilities, DriverHttpSettings.clientConfig(saved.options, recorder));
+				String url = driver.getCurrentUrl();
+				driverProcesses.adopt(driver, saved.serviceUrl, saved.pidFile);
+				drivers.put(saved.sessionId, driver);
+				commandLatency.put(saved.sessionId, recorder);
+				checkpoints.restore(saved);
+				checkpoints.updateUrl(saved.sessionId, url);
+				String note = "";
+				if (saved.captureLogs) {
+					lostCaptures.add(saved.sessionId);
+					note = "; its log capture was not restored";
+				}
+				System.err.println(
+						"Reattached session " + saved.sessionId + " (" + saved.browser + ") at " + url + note);
+			} catch (RuntimeException e) {
+				String message = e.getMessage() != null ? e.getMessage().split("\n")[0] : e.getClass().getName();
+				System.err.println(
+						"Could not reattach session " + saved.sessionId + " (last at " + saved.url + "): " + message);
+			}
+		}
+		String current = checkpoints.current();
+		currentSession = current != null && drivers.containsKey(current) ? current : null;
+		checkpoints.setCurrent(currentSession);
+	}
+
+	private static synchronized CachingProxy cacheProxy() throws IOException {
+		if (cacheProxy == null) {
+			cacheProxy = CachingProxy.start();
+			System.err.println("Cache proxy listening on " + cacheProxy.address());
+		}
+		return cacheProxy;
+	}
+
+	private static Proxy cacheProxySettings(String proxyAddress) {
+		Proxy proxy = new Proxy();
+		proxy.setHttpProxy(proxyAddress);
+		proxy.setSslProxy(proxyAddress);
+		return proxy;
+	}
+
+	private static String performanceProfileName(JsonNode optionsNode) {
+		return optionsNode != null && optionsNode.has("performanceProfile")
+				? optionsNode.get("performanceProfile").asText()
+				: System.getProperty("mcp.performanceProfile");
+	}
+
 	private static ArrayNode navigate(JsonNode params) {
 		try {
 			String url = params.get("url").asText();
 			WebDriver driver = getDriver();
 			driver.get(url);
+			checkpoints.updateUrl(activeSession(), url);
 			return createTextResponse("Navigated to " + url);
 		} catch (Exception e) {
 			return createErrorResponse("Error navigating: " + e.getMessage());
@@ -278,13 +645,11 @@ public class McpSeleniumServer {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+			waitFor(driver, params, by, value, ExpectedConditions.presenceOfElementLocated(locator));
 
 			return createTextResponse("Element found");
 		} catch (Exception e) {
@@ -296,13 +661,11 @@ public class McpSeleniumServer {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.elementToBeClickable(locator));
 			element.click();
 
 			return createTextResponse("Element clicked");
@@ -316,13 +679,11 @@ public class McpSeleniumServer {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
 			String text = params.get("text").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.elementToBeClickable(locator));
 			element.clear();
 			element.sendKeys(text);
 
@@ -332,19 +693,151 @@ public class McpSeleniumServer {
 		}
 	}
 
+	private static ArrayNode fillForm(JsonNode params) {
+		try {
+			JsonNode fieldsNode = params.get("fields");
+			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
+			boolean failFast = params.has("failFast") ? params.get("failFast").asBoolean()
+					: Boolean.getBoolean("mcp.wait.failFast");
+			long settleWindow = params.has("settleWindow") ? params.get("settleWindow").asLong()
+					: Long.getLong("mcp.wait.settleWindow", 500);
+
+			WebDriver driver = getDriver();
+			List<String> labels = new ArrayList<>();
+			List<By> locators = new ArrayList<>();
+			List<List<Object>> fields = new ArrayList<>();
+
+			for (JsonNode fieldNode : fieldsNode) {
+				String by = fieldNode.get("by").asText().toLowerCase();
+				String value = fieldNode.get("value").asText();
+				JsonNode textNode = fieldNode.get("text");
+				boolean nativeTyping = fieldNode.has("native") && fieldNode.get("native").asBoolean();
+
+				labels.add(by + "=" + value);
+				locators.add(getLocator(by, value));
+				fields.add(Arrays.asList(by, value, null, toScriptValue(textNode), nativeTyping, null));
+			}
+
+			// Fill only once every field is present, or fill what we have when the timeout runs out. With failFast,
+			// missing fields on a page that has settled won't appear, so the partial fill happens right away.
+			Map<String, Object> outcome;
+			boolean[] gaveUp = new boolean[1];
+			FlightEvents.Wait waitEvent = new FlightEvents.Wait();
+			waitEvent.begin();
+			try {
+				WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
+				outcome = wait.until(d -> {
+					Map<String, Object> result = runFillFormScript(d, locators, fields, false);
+					if (result.containsKey("results")) {
+						return result;
+					}
+					if (failFast && SettlingWait.isSettled(d, settleWindow)) {
+						gaveUp[0] = true;
+						return runFillFormScript(d, locators, fields, true);
+					}
+					return null;
+				});
+				waitEvent.satisfied = !gaveUp[0];
+			} catch (TimeoutException e) {
+				outcome = runFillFormScript(driver, locators, fields, true);
+			}
+			waitEvent.end();
+			if (waitEvent.shouldCommit()) {
+				waitEvent.locator = "fill_form " + String.join(", ", labels);
+				waitEvent.timeout = timeout;
+				waitEvent.failFast = failFast;
+				waitEvent.commit();
+			}
+
+			List<?> results = (List<?>) outcome.get("results");
+			List<String> lines = new ArrayList<>();
+			int filled = 0;
+			for (int i = 0; i < results.size(); i++) {
+				Map<?, ?> result = (Map<?, ?>) results.get(i);
+				String status = String.valueOf(result.get("status"));
+				String message = String.valueOf(result.get("message"));
+
+				if ("native".equals(status)) {
+					try {
+						WebElement element = (WebElement) result.get("element");
+						if (Boolean.TRUE.equals(result.get("clear"))) {
+							element.clear();
+						}
+						element.sendKeys(String.valueOf(fields.get(i).get(3)));
+						status = "ok";
+						message = "typed";
+					} catch (Exception e) {
+						status = "error";
+						message = e.getMessage();
+					}
+				}
+
+				if ("ok".equals(status)) {
+					filled++;
+				}
+				lines.add("[" + status + "] " + labels.get(i) + ": " + message);
+			}
+
+			lines.add(0, "Filled " + filled + " of " + results.size() + " fields");
+			return createTextResponse(String.join("\n", lines));
+		} catch (Exception e) {
+			return createErrorResponse("Error filling form: " + e.getMessage());
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> runFillFormScript(WebDriver driver, List<By> locators, List<List<Object>> fields,
+			boolean allowPartial) {
+		// Basic strategies are resolved inside the script; script locators need their own lookup, and one that can't
+		// be evaluated (e.g. malformed shadow_css) is handed to the script as that field's error
+		for (int i = 0; i < locators.size(); i++) {
+			By locator = locators.get(i);
+			List<Object> field = fields.get(i);
+			field.set(2, null);
+			field.set(5, null);
+			if (LocatorEngine.isScriptLocator(locator)) {
+				try {
+					List<WebElement> found = driver.findElements(locator);
+					field.set(2, found.isEmpty() ? null : found.get(0));
+				} catch (InvalidSelectorException | JavascriptException e) {
+					field.set(5, e.getRawMessage());
+				}
+			}
+		}
+		return (Map<String, Object>) fillFormScript.execute(driver, fields, allowPartial);
+	}
+
+	private static Object toScriptValue(JsonNode node) {
+		if (node == null || node.isNull()) {
+			return "";
+		}
+		if (node.isBoolean()) {
+			return node.asBoolean();
+		}
+		if (node.isArray()) {
+			List<String> values = new ArrayList<>();
+			node.forEach(item -> values.add(item.asText()));
+			return values;
+		}
+		return node.asText();
+	}
+
 	private static ArrayNode getElementText(JsonNode params) {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.visibilityOfElementLocated(locator));
 			String text = element.getText();
 
+			if (text.length() > artifacts.inlineThreshold()) {
+				ArtifactSpool.Artifact artifact = artifacts.put(text.getBytes(StandardCharsets.UTF_8), ArtifactSpool.TEXT_MIME_TYPE);
+				return createArtifactResponse("Element text is " + text.length() + " characters; stored as artifact:",
+						artifact);
+			}
 			return createTextResponse(text);
 		} catch (Exception e) {
 			return createErrorResponse("Error getting element text: " + e.getMessage());
@@ -355,13 +848,11 @@ public class McpSeleniumServer {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.visibilityOfElementLocated(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.visibilityOfElementLocated(locator));
 
 			Actions actions = new Actions(driver);
 			actions.moveToElement(element).perform();
@@ -378,15 +869,15 @@ public class McpSeleniumServer {
 			String value = params.get("value").asText();
 			String targetBy = params.get("targetBy").asText();
 			String targetValue = params.get("targetValue").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By sourceLocator = getLocator(by, value);
 			By targetLocator = getLocator(targetBy, targetValue);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement sourceElement = wait.until(ExpectedConditions.visibilityOfElementLocated(sourceLocator));
-			WebElement targetElement = wait.until(ExpectedConditions.visibilityOfElementLocated(targetLocator));
+			WebElement sourceElement = waitFor(driver, params, by, value,
+					ExpectedConditions.visibilityOfElementLocated(sourceLocator));
+			WebElement targetElement = waitFor(driver, params, targetBy, targetValue,
+					ExpectedConditions.visibilityOfElementLocated(targetLocator));
 
 			Actions actions = new Actions(driver);
 			actions.dragAndDrop(sourceElement, targetElement).perform();
@@ -401,13 +892,11 @@ public class McpSeleniumServer {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.elementToBeClickable(locator));
 
 			Actions actions = new Actions(driver);
 			actions.doubleClick(element).perform();
@@ -422,13 +911,11 @@ public class McpSeleniumServer {
 		try {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.elementToBeClickable(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.elementToBeClickable(locator));
 
 			Actions actions = new Actions(driver);
 			actions.contextClick(element).perform();
@@ -458,13 +945,11 @@ public class McpSeleniumServer {
 			String by = params.get("by").asText();
 			String value = params.get("value").asText();
 			String filePath = params.get("filePath").asText();
-			long timeout = params.has("timeout") ? params.get("timeout").asLong() : 10000;
 
 			WebDriver driver = getDriver();
 			By locator = getLocator(by, value);
 
-			WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeout));
-			WebElement element = wait.until(ExpectedConditions.presenceOfElementLocated(locator));
+			WebElement element = waitFor(driver, params, by, value, ExpectedConditions.presenceOfElementLocated(locator));
 			element.sendKeys(filePath);
 
 			return createTextResponse("File upload initiated");
@@ -483,12 +968,28 @@ public class McpSeleniumServer {
 			}
 
 			TakesScreenshot screenshotDriver = (TakesScreenshot) driver;
-			String screenshot = screenshotDriver.getScreenshotAs(OutputType.BASE64);
+			boolean inline = params.has("inline") && params.get("inline").asBoolean();
+
+			if (params.has("fullPage") && params.get("fullPage").asBoolean()) {
+				return takeFullPageScreenshot(driver, params, outputPath, inline);
+			}
 
 			if (outputPath != null && !outputPath.isEmpty()) {
-				Files.write(Paths.get(outputPath), Base64.getDecoder().decode(screenshot));
+				FlightEvents.Screenshot screenshotEvent = beginScreenshotEvent();
+				byte[] png = screenshotDriver.getScreenshotAs(OutputType.BYTES);
+				Files.write(Paths.get(outputPath), png);
+				commitScreenshotEvent(screenshotEvent, "file", png.length);
 				return createTextResponse("Screenshot saved to " + outputPath);
+			} else if (!inline) {
+				FlightEvents.Screenshot screenshotEvent = beginScreenshotEvent();
+				ArtifactSpool.Artifact artifact = artifacts.put(screenshotDriver.getScreenshotAs(OutputType.BYTES),
+						"image/png");
+				commitScreenshotEvent(screenshotEvent, "artifact", artifact.size);
+				return createArtifactResponse("Screenshot captured as artifact:", artifact);
 			} else {
+				FlightEvents.Screenshot screenshotEvent = beginScreenshotEvent();
+				String screenshot = screenshotDriver.getScreenshotAs(OutputType.BASE64);
+				commitScreenshotEvent(screenshotEvent, "inline", screenshot.length());
 				ArrayNode content = objectMapper.createArrayNode();
 				ObjectNode text1 = objectMapper.createObjectNode();
 				text1.put("type", "text");
@@ -507,14 +1008,261 @@ public class McpSeleniumServer {
 		}
 	}
 
+	private static ArrayNode takeFullPageScreenshot(WebDriver driver, JsonNode params, String outputPath,
+			boolean inline) throws IOException {
+		long maxHeight = params.has("maxHeight") ? params.get("maxHeight").asLong()
+				: Long.getLong("mcp.screenshot.maxHeight", 32768);
+		if (maxHeight < 1) {
+			return createErrorResponse("maxHeight must be at least 1, got " + maxHeight);
+		}
+		boolean toFile = outputPath != null && !outputPath.isEmpty();
+		// The image is streamed to disk while it is stitched, so artifacts and inline replies start from a temp file
+		Path target = toFile ? Paths.get(outputPath) : Files.createTempFile("mcp-full-page-", ".png");
+		boolean saved = false;
+		try {
+			FlightEvents.Screenshot screenshotEvent = beginScreenshotEvent();
+			FullPageScreenshot.Result result = FullPageScreenshot.capture(driver, target, maxHeight);
+			String output = toFile ? "file" : inline ? "inline" : "artifact";
+			commitScreenshotEvent(screenshotEvent, "full page " + output, Files.size(target));
+
+			if (toFile) {
+				saved = true;
+				return createTextResponse("Full-page screenshot (" + result.describe() + ") saved to " + outputPath);
+			} else if (!inline) {
+				ArtifactSpool.Artifact artifact = artifacts.putFile(target, "image/png");
+				return createArtifactResponse("Full-page screenshot (" + result.describe() + ") captured as artifact:",
+						artifact);
+			} else {
+				ArrayNode content = createTextResponse(
+						"Full-page screenshot (" + result.describe() + ") captured as base64:");
+				content.addAll(createTextResponse(Base64.getEncoder().encodeToString(Files.readAllBytes(target))));
+				return content;
+			}
+		} finally {
+			// A moved artifact is already gone; a partly written file is not kept
+			if (!saved) {
+				Files.deleteIfExists(target);
+			}
+		}
+	}
+
+	private static FlightEvents.Screenshot beginScreenshotEvent() {
+		FlightEvents.Screenshot event = new FlightEvents.Screenshot();
+		event.begin();
+		return event;
+	}
+
+	private static void commitScreenshotEvent(FlightEvents.Screenshot event, String output, long size) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.output = output;
+			event.size = size;
+			event.commit();
+		}
+	}
+
+	private static ArrayNode getLogs(JsonNode params) {
+		try {
+			getDriver();
+			String sessionId = activeSession();
+			SessionEventCapture capture = eventCaptures.get(sessionId);
+			if (capture == null && lostCaptures.contains(sessionId)) {
+				return createErrorResponse("Log capture for session " + sessionId
+						+ " stopped when the server restarted; start a new session with captureLogs to capture again");
+			}
+			if (capture == null) {
+				return createErrorResponse(
+						"Log capture is not enabled for session " + sessionId + " (start it with captureLogs)");
+			}
+
+			long since = params.has("since") ? params.get("since").asLong() : 0;
+			int limit = params.has("limit") ? params.get("limit").asInt() : 100;
+			byte minLevel = params.has("level") ? EventRingBuffer.level(params.get("level").asText())
+					: EventRingBuffer.LEVEL_DEBUG;
+			int kindMask = 0;
+			if (params.has("kinds")) {
+				for (JsonNode kind : params.get("kinds")) {
+					kindMask |= EventRingBuffer.kindMask(kind.asText());
+				}
+			} else {
+				kindMask = ~0;
+			}
+
+			EventRingBuffer.Slice slice = capture.buffer().read(since, kindMask, minLevel, limit);
+			List<String> lines = new ArrayList<>();
+			lines.add("cursor=" + slice.cursor + " events=" + slice.lines.size() + " missed=" + slice.missed
+					+ " dropped=" + slice.dropped + " truncated=" + slice.truncated);
+			lines.addAll(slice.lines);
+			return createTextResponse(String.join("\n", lines));
+		} catch (Exception e) {
+			return createErrorResponse("Error getting logs: " + e.getMessage());
+		}
+	}
+
+	private static ArrayNode getProxyStats() {
+		synchronized (McpSeleniumServer.class) {
+			if (cacheProxy == null) {
+				return createTextResponse("Cache proxy is not running (start a browser with cacheProxy)");
+			}
+			return createTextResponse(cacheProxy.stats());
+		}
+	}
+
+	private static ArrayNode getCommandLatency() {
+		try {
+			getDriver();
+			String sessionId = activeSession();
+			CommandLatencyRecorder recorder = commandLatency.get(sessionId);
+			List<String> lines = recorder != null ? recorder.summary() : new ArrayList<>();
+			if (lines.isEmpty()) {
+				return createTextResponse("No commands recorded for session " + sessionId);
+			}
+			lines.add(0, "Command latency for session " + sessionId + ":");
+			return createTextResponse(String.join("\n", lines));
+		} catch (Exception e) {
+			return createErrorResponse("Error getting command latency: " + e.getMessage());
+		}
+	}
+
+	private static ArrayNode fanOut(JsonNode params) {
+		try {
+			String tool = params.get("tool").asText();
+			JsonNode toolParams = params.has("params") ? params.get("params") : objectMapper.createObjectNode();
+			int concurrency = params.has("concurrency") ? params.get("concurrency").asInt()
+					: Integer.getInteger("mcp.fanOut.concurrency", 8);
+			long timeout = params.has("timeout") ? params.get("timeout").asLong()
+					: Long.getLong("mcp.fanOut.timeout", 60000);
+
+			if (!FAN_OUT_TOOLS.contains(tool)) {
+				throw new IllegalArgumentException(tool + " can't be fanned out (supported: " + FAN_OUT_TOOLS + ")");
+			}
+			if (concurrency < 1 || timeout < 1) {
+				throw new IllegalArgumentException("concurrency and timeout must be positive");
+			}
+			List<String> sessionIds = new ArrayList<>();
+			for (JsonNode idNode : params.get("sessions")) {
+				String sessionId = idNode.asText();
+				if (!drivers.containsKey(sessionId)) {
+					throw new IllegalArgumentException("Unknown session " + sessionId);
+				}
+				if (sessionIds.contains(sessionId)) {
+					throw new IllegalArgumentException("Session " + sessionId + " is listed twice");
+				}
+				sessionIds.add(sessionId);
+			}
+
+			long start = System.nanoTime();
+			List<FanOutRunner.Result<ArrayNode>> results = fanOutRunner.run(sessionIds, concurrency, timeout,
+					sessionId -> runBound(sessionId, tool, toolParams));
+			long wallMillis = (System.nanoTime() - start) / 1_000_000;
+
+			ArrayNode content = objectMapper.createArrayNode();
+			int ok = 0;
+			int failed = 0;
+			int timedOut = 0;
+			for (FanOutRunner.Result<ArrayNode> result : results) {
+				String status;
+				if (result.status == FanOutRunner.Status.TIMED_OUT) {
+					status = "timed out (its session is busy until the step stops)";
+					timedOut++;
+				} else if (result.status == FanOutRunner.Status.FAILED
+						|| result.value.path(0).path("text").asText("").startsWith("Error")) {
+					status = "error";
+					failed++;
+				} else {
+					status = "ok";
+					ok++;
+				}
+				content.addAll(createTextResponse(result.sessionId + ": " + status + " in " + result.elapsedMillis()
+						+ " ms" + (result.error != null ? ": " + result.error.getMessage() : "")));
+				if (result.value != null) {
+					content.addAll(result.value);
+				}
+			}
+			content.insert(0, createTextResponse("Ran " + tool + " on " + sessionIds.size() + " session(s) in "
+					+ wallMillis + " ms: " + ok + " ok, " + failed + " error, " + timedOut + " timed out").get(0));
+			return content;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return createErrorResponse("Error fanning out: interrupted");
+		} catch (Exception e) {
+			return createErrorResponse("Error fanning out: " + e.getMessage());
+		}
+	}
+
+	// Runs a tool for a session on a fan_out thread under the session's lock; sessions sharing a browser process
+	// take turns. A step that outlives its timeout keeps the lock until it stops, fencing later calls on the session.
+	private static ArrayNode runBound(String sessionId, String tool, JsonNode toolParams) {
+		Lock lock = sessionLock(sessionId);
+		boundSession.set(sessionId);
+		try {
+			lock.lockInterruptibly();
+			try {
+				return callTool(tool, perSessionParams(tool, toolParams, sessionId));
+			} finally {
+				lock.unlock();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("interrupted while waiting for the session's browser");
+		} finally {
+			boundSession.remove();
+		}
+	}
+
+	// One outputPath for every session would have them overwrite each other's screenshot, so each gets its session id
+	// before the extension (shot.png -> shot-<sessionId>.png)
+	private static JsonNode perSessionParams(String tool, JsonNode toolParams, String sessionId) {
+		String outputPath = toolParams.path("outputPath").asText("");
+		if (!"take_screenshot".equals(tool) || outputPath.isEmpty()) {
+			return toolParams;
+		}
+		Path path = Paths.get(outputPath);
+		String fileName = path.getFileName().toString();
+		int dot = fileName.lastIndexOf('.');
+		String sessionFileName = dot > 0 ? fileName.substring(0, dot) + "-" + sessionId + fileName.substring(dot)
+				: fileName + "-" + sessionId;
+		ObjectNode params = ((ObjectNode) toolParams).deepCopy();
+		params.put("outputPath", path.resolveSibling(sessionFileName).toString());
+		return params;
+	}
+
+	private static ArrayNode registerProfileTemplate(JsonNode params) {
+		try {
+			String name = params.get("name").asText();
+			String path = params.get("path").asText();
+			String hash = profileTemplates.register(name, Paths.get(path));
+			return createTextResponse("Profile template " + name + " registered (" + hash + ")");
+		} catch (Exception e) {
+			return createErrorResponse("Error registering profile template: " + e.getMessage());
+		}
+	}
+
 	private static ArrayNode closeSession() {
 		try {
 			if (currentSession != null) {
+				SessionEventCapture capture = eventCaptures.remove(currentSession);
+				if (capture != null) {
+					capture.close();
+				}
+				lostCaptures.remove(currentSession);
+
 				WebDriver driver = drivers.get(currentSession);
 				if (driver != null) {
-					driver.quit();
+					LocatorEngine.release(driver);
+					fillFormScript.release(driver);
+					SettlingWait.release(driver);
+					if (sharedBrowsers.isShared(currentSession)) {
+						sharedBrowsers.close(currentSession);
+					} else {
+						driverProcesses.quit(driver);
+					}
 					drivers.remove(currentSession);
 				}
+				profileTemplates.release(currentSession);
+				commandLatency.remove(currentSession);
+				sessionLocks.remove(currentSession);
+				checkpoints.remove(currentSession);
 
 				String sessionId = currentSession;
 				currentSession = null;
@@ -543,11 +1291,86 @@ public class McpSeleniumServer {
 		ObjectNode argsProp = objectMapper.createObjectNode();
 		argsProp.put("type", "array");
 		argsProp.put("items", objectMapper.createObjectNode().put("type", "string"));
-		argsProp.put("description", "Additional browser arguments");
+		argsProp.put("description",
+				"Additional browser arguments; an argument replaces the performance profile's argument with the same flag");
+
+		ObjectNode connectTimeoutProp = objectMapper.createObjectNode();
+		connectTimeoutProp.put("type", "number");
+		connectTimeoutProp.put("description", "Driver connection timeout in milliseconds");
+
+		ObjectNode readTimeoutProp = objectMapper.createObjectNode();
+		readTimeoutProp.put("type", "number");
+		readTimeoutProp.put("description", "Driver read timeout in milliseconds");
+
+		ObjectNode versionProp = objectMapper.createObjectNode();
+		versionProp.put("type", "string");
+		versionProp.set("enum", objectMapper.createArrayNode().add("HTTP_1_1").add("HTTP_2"));
+		versionProp.put("description", "HTTP version used for driver commands");
+
+		ObjectNode httpProps = objectMapper.createObjectNode();
+		httpProps.set("connectTimeout", connectTimeoutProp);
+		httpProps.set("readTimeout", readTimeoutProp);
+		httpProps.set("version", versionProp);
+
+		ObjectNode httpProp = objectMapper.createObjectNode();
+		httpProp.put("type", "object");
+		httpProp.set("properties", httpProps);
+		httpProp.put("description", "HTTP client settings for the connection to the driver binary");
+
+		ObjectNode captureLogsProp = objectMapper.createObjectNode();
+		captureLogsProp.put("type", "boolean");
+		captureLogsProp.put("description", "Capture console and network events for get_logs (uses WebDriver BiDi)");
+
+		ObjectNode logCapacityProp = objectMapper.createObjectNode();
+		logCapacityProp.put("type", "number");
+		logCapacityProp.put("description",
+				"Maximum number of captured events kept (1 to " + MAX_LOG_CAPACITY + "); older events are dropped");
+
+		ObjectNode sharedProp = objectMapper.createObjectNode();
+		sharedProp.put("type", "boolean");
+		sharedProp.put("description",
+				"Open the session as an isolated context in a shared browser process instead of a new browser");
+
+		ObjectNode profileTemplateProp = objectMapper.createObjectNode();
+		profileTemplateProp.put("type", "string");
+		profileTemplateProp.put("description",
+				"Name of a registered profile template to clone for this session (e.g. an already logged-in profile)");
+
+		ObjectNode performanceProfileProp = objectMapper.createObjectNode();
+		performanceProfileProp.put("type", "string");
+		ArrayNode performanceProfileNames = objectMapper.createArrayNode();
+		performanceProfiles.names().forEach(performanceProfileNames::add);
+		performanceProfileProp.set("enum", performanceProfileNames);
+		performanceProfileProp.put("description",
+				"Named set of browser arguments, preferences and capabilities tuned for speed or rendering fidelity");
+
+		ObjectNode prefsProp = objectMapper.createObjectNode();
+		prefsProp.put("type", "object");
+		prefsProp.put("description",
+				"Browser preferences; each key overrides the performance profile's value, null removes it");
+
+		ObjectNode capabilitiesProp = objectMapper.createObjectNode();
+		capabilitiesProp.put("type", "object");
+		capabilitiesProp.put("description",
+				"WebDriver capabilities (e.g. pageLoadStrategy); each key overrides the performance profile's value");
+
+		ObjectNode cacheProxyProp = objectMapper.createObjectNode();
+		cacheProxyProp.put("type", "boolean");
+		cacheProxyProp.put("description",
+				"Route the browser through the server's shared caching proxy so static assets are reused across sessions");
 
 		ObjectNode optionsProps = objectMapper.createObjectNode();
 		optionsProps.set("headless", headlessProp);
 		optionsProps.set("arguments", argsProp);
+		optionsProps.set("performanceProfile", performanceProfileProp);
+		optionsProps.set("prefs", prefsProp);
+		optionsProps.set("capabilities", capabilitiesProp);
+		optionsProps.set("http", httpProp);
+		optionsProps.set("captureLogs", captureLogsProp);
+		optionsProps.set("logCapacity", logCapacityProp);
+		optionsProps.set("shared", sharedProp);
+		optionsProps.set("profileTemplate", profileTemplateProp);
+		optionsProps.set("cacheProxy", cacheProxyProp);
 
 		ObjectNode optionsSchema = objectMapper.createObjectNode();
 		optionsSchema.put("type", "object");
@@ -587,8 +1410,7 @@ public class McpSeleniumServer {
 
 		ObjectNode byProp = objectMapper.createObjectNode();
 		byProp.put("type", "string");
-		byProp.put("enum",
-				objectMapper.createArrayNode().add("id").add("css").add("xpath").add("name").add("tag").add("class"));
+		byProp.set("enum", createLocatorEnum());
 		byProp.put("description", "Locator strategy to find element");
 
 		ObjectNode valueProp = objectMapper.createObjectNode();
@@ -599,10 +1421,22 @@ public class McpSeleniumServer {
 		timeoutProp.put("type", "number");
 		timeoutProp.put("description", "Maximum time to wait for element in milliseconds");
 
+		ObjectNode failFastProp = objectMapper.createObjectNode();
+		failFastProp.put("type", "boolean");
+		failFastProp.put("description",
+				"Fail as soon as nothing matches and the page has stopped changing, instead of waiting for the timeout");
+
+		ObjectNode settleWindowProp = objectMapper.createObjectNode();
+		settleWindowProp.put("type", "number");
+		settleWindowProp.put("description",
+				"With failFast, how long the page must be free of DOM changes and requests, in milliseconds");
+
 		ObjectNode properties = objectMapper.createObjectNode();
 		properties.set("by", byProp);
 		properties.set("value", valueProp);
 		properties.set("timeout", timeoutProp);
+		properties.set("failFast", failFastProp);
+		properties.set("settleWindow", settleWindowProp);
 
 		schema.put("type", "object");
 		schema.set("properties", properties);
@@ -611,6 +1445,11 @@ public class McpSeleniumServer {
 		return schema;
 	}
 
+	private static ArrayNode createLocatorEnum() {
+		return objectMapper.createArrayNode().add("id").add("css").add("xpath").add("name").add("tag").add("class")
+				.add("text").add("role").add("shadow_css");
+	}
+
 	private static ObjectNode createSendKeysSchema() {
 		ObjectNode schema = createElementSchema();
 		ObjectNode properties = (ObjectNode) schema.get("properties");
@@ -625,14 +1464,62 @@ public class McpSeleniumServer {
 		return schema;
 	}
 
+	private static ObjectNode createFillFormSchema() {
+		ObjectNode schema = objectMapper.createObjectNode();
+
+		ObjectNode fieldSchema = createElementSchema();
+		ObjectNode fieldProperties = (ObjectNode) fieldSchema.get("properties");
+		fieldProperties.remove("timeout");
+		// The wait covers all fields, so failFast and settleWindow apply to the whole call
+		ObjectNode failFastProp = (ObjectNode) fieldProperties.remove("failFast");
+		failFastProp.put("description", "Fill the fields that are present as soon as the others are missing and the "
+				+ "page has stopped changing, instead of waiting for the timeout");
+		JsonNode settleWindowProp = fieldProperties.remove("settleWindow");
+
+		ObjectNode textProp = objectMapper.createObjectNode();
+		textProp.set("type", objectMapper.createArrayNode().add("string").add("boolean").add("array"));
+		textProp.put("description",
+				"Value to set: text for inputs, option value or label for selects (array for multi-selects), "
+						+ "true/false for checkboxes, anything for a radio button to select it");
+		fieldProperties.set("text", textProp);
+
+		ObjectNode nativeProp = objectMapper.createObjectNode();
+		nativeProp.put("type", "boolean");
+		nativeProp.put("description",
+				"Type with real key events instead of setting the value directly (for fields that react to keystrokes)");
+		fieldProperties.set("native", nativeProp);
+
+		((ArrayNode) fieldSchema.get("required")).add("text");
+
+		ObjectNode fieldsProp = objectMapper.createObjectNode();
+		fieldsProp.put("type", "array");
+		fieldsProp.set("items", fieldSchema);
+		fieldsProp.put("description", "Fields to fill, in order");
+
+		ObjectNode timeoutProp = objectMapper.createObjectNode();
+		timeoutProp.put("type", "number");
+		timeoutProp.put("description", "Maximum time to wait for all fields in milliseconds");
+
+		ObjectNode properties = objectMapper.createObjectNode();
+		properties.set("fields", fieldsProp);
+		properties.set("timeout", timeoutProp);
+		properties.set("failFast", failFastProp);
+		properties.set("settleWindow", settleWindowProp);
+
+		schema.put("type", "object");
+		schema.set("properties", properties);
+		schema.set("required", objectMapper.createArrayNode().add("fields"));
+
+		return schema;
+	}
+
 	private static ObjectNode createDragAndDropSchema() {
 		ObjectNode schema = createElementSchema();
 		ObjectNode properties = (ObjectNode) schema.get("properties");
 
 		ObjectNode targetByProp = objectMapper.createObjectNode();
 		targetByProp.put("type", "string");
-		targetByProp.put("enum",
-				objectMapper.createArrayNode().add("id").add("css").add("xpath").add("name").add("tag").add("class"));
+		targetByProp.set("enum", createLocatorEnum());
 		targetByProp.put("description", "Locator strategy to find target element");
 
 		ObjectNode targetValueProp = objectMapper.createObjectNode();
@@ -684,10 +1571,59 @@ public class McpSeleniumServer {
 		ObjectNode outputPathProp = objectMapper.createObjectNode();
 		outputPathProp.put("type", "string");
 		outputPathProp.put("description",
-				"Optional path where to save the screenshot. If not provided, returns base64 data.");
+				"Optional path where to save the screenshot. If not provided, returns an artifact:// URI to read with a resource_request.");
+
+		ObjectNode inlineProp = objectMapper.createObjectNode();
+		inlineProp.put("type", "boolean");
+		inlineProp.put("description", "Return the screenshot as base64 text in the response instead of an artifact URI");
+
+		ObjectNode fullPageProp = objectMapper.createObjectNode();
+		fullPageProp.put("type", "boolean");
+		fullPageProp.put("description", "Capture the whole page instead of the viewport");
+
+		ObjectNode maxHeightProp = objectMapper.createObjectNode();
+		maxHeightProp.put("type", "number");
+		maxHeightProp.put("description", "With fullPage, capture at most this many CSS pixels from the top (default 32768)");
 
 		ObjectNode properties = objectMapper.createObjectNode();
 		properties.set("outputPath", outputPathProp);
+		properties.set("inline", inlineProp);
+		properties.set("fullPage", fullPageProp);
+		properties.set("maxHeight", maxHeightProp);
+
+		schema.put("type", "object");
+		schema.set("properties", properties);
+
+		return schema;
+	}
+
+	private static ObjectNode createGetLogsSchema() {
+		ObjectNode schema = objectMapper.createObjectNode();
+
+		ObjectNode sinceProp = objectMapper.createObjectNode();
+		sinceProp.put("type", "number");
+		sinceProp.put("description", "Cursor returned by the previous call; only newer events are returned");
+
+		ObjectNode kindsProp = objectMapper.createObjectNode();
+		kindsProp.put("type", "array");
+		kindsProp.set("items", objectMapper.createObjectNode().put("type", "string")
+				.set("enum", objectMapper.createArrayNode().add("console").add("network")));
+		kindsProp.put("description", "Event kinds to return (default: all)");
+
+		ObjectNode levelProp = objectMapper.createObjectNode();
+		levelProp.put("type", "string");
+		levelProp.set("enum", objectMapper.createArrayNode().add("debug").add("info").add("warn").add("error"));
+		levelProp.put("description", "Minimum level to return");
+
+		ObjectNode limitProp = objectMapper.createObjectNode();
+		limitProp.put("type", "number");
+		limitProp.put("description", "Maximum number of events to return (default 100)");
+
+		ObjectNode properties = objectMapper.createObjectNode();
+		properties.set("since", sinceProp);
+		properties.set("kinds", kindsProp);
+		properties.set("level", levelProp);
+		properties.set("limit", limitProp);
 
 		schema.put("type", "object");
 		schema.set("properties", properties);
@@ -695,6 +1631,68 @@ public class McpSeleniumServer {
 		return schema;
 	}
 
+	private static ObjectNode createFanOutSchema() {
+		ObjectNode schema = objectMapper.createObjectNode();
+
+		ObjectNode sessionsProp = objectMapper.createObjectNode();
+		sessionsProp.put("type", "array");
+		sessionsProp.set("items", objectMapper.createObjectNode().put("type", "string"));
+		sessionsProp.put("description", "Session ids returned by start_browser");
+
+		ObjectNode toolProp = objectMapper.createObjectNode();
+		toolProp.put("type", "string");
+		ArrayNode toolEnum = toolProp.putArray("enum");
+		FAN_OUT_TOOLS.forEach(toolEnum::add);
+		toolProp.put("description", "Tool to run on every session");
+
+		ObjectNode paramsProp = objectMapper.createObjectNode();
+		paramsProp.put("type", "object");
+		paramsProp.put("description", "Parameters of the tool, the same for every session");
+
+		ObjectNode concurrencyProp = objectMapper.createObjectNode();
+		concurrencyProp.put("type", "number");
+		concurrencyProp.put("description", "Maximum number of sessions running the tool at once (default 8)");
+
+		ObjectNode timeoutProp = objectMapper.createObjectNode();
+		timeoutProp.put("type", "number");
+		timeoutProp.put("description", "Time limit per session in milliseconds (default 60000)");
+
+		ObjectNode properties = objectMapper.createObjectNode();
+		properties.set("sessions", sessionsProp);
+		properties.set("tool", toolProp);
+		properties.set("params", paramsProp);
+		properties.set("concurrency", concurrencyProp);
+		properties.set("timeout", timeoutProp);
+
+		schema.put("type", "object");
+		schema.set("properties", properties);
+		schema.set("required", objectMapper.createArrayNode().add("sessions").add("tool"));
+
+		return schema;
+	}
+
+	private static ObjectNode createRegisterProfileTemplateSchema() {
+		ObjectNode schema = objectMapper.createObjectNode();
+
+		ObjectNode nameProp = objectMapper.createObjectNode();
+		nameProp.put("type", "string");
+		nameProp.put("description", "Template name (letters, digits, '.', '_' and '-')");
+
+		ObjectNode pathProp = objectMapper.createObjectNode();
+		pathProp.put("type", "string");
+		pathProp.put("description", "Chrome user-data-dir or Firefox profile directory to import");
+
+		ObjectNode properties = objectMapper.createObjectNode();
+		properties.set("name", nameProp);
+		properties.set("path", pathProp);
+
+		schema.put("type", "object");
+		schema.set("properties", properties);
+		schema.set("required", objectMapper.createArrayNode().add("name").add("path"));
+
+		return schema;
+	}
+
 	// Helper methods for response creation
 	private static ArrayNode createTextResponse(String text) {
 		ArrayNode content = objectMapper.createArrayNode();
@@ -709,6 +1707,50 @@ public class McpSeleniumServer {
 		return createTextResponse(errorMessage);
 	}
 
+	private static ArrayNode createArtifactResponse(String message, ArtifactSpool.Artifact artifact) {
+		ArrayNode content = createTextResponse(message);
+		ObjectNode resource = objectMapper.createObjectNode();
+		resource.put("type", "resource");
+		resource.put("uri", artifact.uri());
+		resource.put("mimeType", artifact.mimeType);
+		resource.put("size", artifact.size);
+		content.add(resource);
+		return content;
+	}
+
+	/**
+	 * Contents for a resource_request on an artifact URI. The request may give a byte "offset" and "length" (at most
+	 * {@link #ARTIFACT_READ_LIMIT}); text artifacts come back as "text", others as base64 "blob".
+	 */
+	private static ArrayNode readArtifact(String uri, JsonNode request) {
+		ArrayNode contents = objectMapper.createArrayNode();
+		ObjectNode content = objectMapper.createObjectNode();
+		content.put("uri", uri);
+		try {
+			long offset = request.has("offset") ? request.get("offset").asLong() : 0;
+			int length = request.has("length") ? (int) Math.min(request.get("length").asLong(), ARTIFACT_READ_LIMIT)
+					: ARTIFACT_READ_LIMIT;
+			ArtifactSpool.Range range = artifacts.read(uri, offset, length);
+			if (range == null) {
+				content.put("text", "Artifact not found (it may have been evicted): " + uri);
+			} else {
+				content.put("mimeType", range.artifact.mimeType);
+				content.put("offset", range.offset);
+				content.put("length", range.data.length);
+				content.put("totalLength", range.totalSize);
+				if (range.artifact.isText()) {
+					content.put("text", new String(range.data, StandardCharsets.UTF_8));
+				} else {
+					content.put("blob", Base64.getEncoder().encodeToString(range.data));
+				}
+			}
+		} catch (Exception e) {
+			content.put("text", "Error reading artifact: " + e.getMessage());
+		}
+		contents.add(content);
+		return contents;
+	}
+
 	private static void addTool(ArrayNode tools, String name, String description, ObjectNode paramSchema) {
 		ObjectNode tool = objectMapper.createObjectNode();
 		tool.put("name", name);
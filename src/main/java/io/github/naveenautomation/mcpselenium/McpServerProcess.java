@@ -0,0 +1,120 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A running MCP Selenium server process and its stdio plumbing: one line of JSON per request on stdin, one line per
+ * response on stdout. Stdout and stderr are read on background threads and handed to the given callbacks.
+ */
+class McpServerProcess {
+	private final Process process;
+	private final BufferedWriter input;
+	private final BufferedReader output;
+
+	private McpServerProcess(Process process) {
+		this.process = process;
+		this.input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+		this.output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+	}
+
+	/**
+	 * Command that runs the server from a jar.
+	 */
+	static List<String> jarCommand(String jarPath) {
+		List<String> command = new ArrayList<>();
+		command.add("java");
+		command.add("-jar");
+		command.add(jarPath);
+		return command;
+	}
+
+	/**
+	 * Command that runs the server from this JVM's classpath, with extra JVM options (e.g. -D settings).
+	 */
+	static List<String> classpathCommand(List<String> jvmOptions) {
+		List<String> command = new ArrayList<>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(McpSeleniumServer.class.getName());
+		return command;
+	}
+
+	/**
+	 * Starts the server. {@code onOutput} receives every stdout line, starting with the server info line;
+	 * {@code onError} receives stderr lines and reader failures. {@code onExit} runs when stdout closes.
+	 */
+	static McpServerProcess start(List<String> command, Consumer<String> onOutput, Consumer<String> onError,
+			Runnable onExit) throws IOException {
+		McpServerProcess server = new McpServerProcess(new ProcessBuilder(command).start());
+
+		Thread outputThread = new Thread(() -> {
+			try {
+				String line;
+				while ((line = server.output.readLine()) != null) {
+					onOutput.accept(line);
+				}
+			} catch (IOException e) {
+				if (server.process.isAlive()) {
+					onError.accept("Error reading from server: " + e.getMessage());
+				}
+			}
+			onExit.run();
+		}, "mcp-server-stdout");
+		outputThread.setDaemon(true);
+		outputThread.start();
+
+		Thread errorThread = new Thread(() -> {
+			try (BufferedReader errorReader = new BufferedReader(
+					new InputStreamReader(server.process.getErrorStream()))) {
+				String line;
+				while ((line = errorReader.readLine()) != null) {
+					onError.accept(line);
+				}
+			} catch (IOException e) {
+				onError.accept("Error reading server errors: " + e.getMessage());
+			}
+		}, "mcp-server-stderr");
+		errorThread.setDaemon(true);
+		errorThread.start();
+
+		return server;
+	}
+
+	/**
+	 * Writes one request line. Safe to call from several threads.
+	 */
+	synchronized void send(String jsonLine) throws IOException {
+		input.write(jsonLine);
+		input.newLine();
+		input.flush();
+	}
+
+	boolean isAlive() {
+		return process.isAlive();
+	}
+
+	ProcessHandle toHandle() {
+		return process.toHandle();
+	}
+
+	void stop() throws IOException {
+		try {
+			input.close();
+			output.close();
+		} finally {
+			if (process.isAlive()) {
+				process.destroy();
+			}
+		}
+	}
+}
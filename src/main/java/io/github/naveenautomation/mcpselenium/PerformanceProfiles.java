@@ -0,0 +1,111 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Named browser performance profiles ({@code minimal}, {@code balanced}, {@code fidelity}) bundling arguments,
+ * preferences and capabilities per browser. The bundled definitions are in {@code performance-profiles.json}; a file
+ * given by {@code mcp.performanceProfiles.file} can add profiles or replace bundled ones by name.
+ *
+ * start_browser options override a profile per key: {@code arguments} replace profile arguments with the same flag
+ * name (the part before {@code =}), and {@code prefs} and {@code capabilities} replace single keys, a null value
+ * removing the key.
+ */
+final class PerformanceProfiles {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final String RESOURCE = "performance-profiles.json";
+
+	private final ObjectNode profiles;
+
+	private PerformanceProfiles(ObjectNode profiles) {
+		this.profiles = profiles;
+	}
+
+	static PerformanceProfiles load() {
+		try (InputStream in = PerformanceProfiles.class.getResourceAsStream(RESOURCE)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + RESOURCE);
+			}
+			ObjectNode profiles = (ObjectNode) objectMapper.readTree(in);
+			String file = System.getProperty("mcp.performanceProfiles.file");
+			if (file != null) {
+				profiles.setAll((ObjectNode) objectMapper.readTree(Files.readAllBytes(Paths.get(file))));
+			}
+			return new PerformanceProfiles(profiles);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read performance profiles: " + e.getMessage(), e);
+		}
+	}
+
+	Set<String> names() {
+		Set<String> names = new TreeSet<>();
+		profiles.fieldNames().forEachRemaining(names::add);
+		return names;
+	}
+
+	/**
+	 * Settings for the browser from the named profile (none if {@code name} is null) with the start_browser options
+	 * applied on top.
+	 */
+	Settings resolve(String name, String browser, JsonNode optionsNode) {
+		Settings settings = new Settings();
+		if (name != null) {
+			JsonNode profile = profiles.get(name);
+			if (profile == null) {
+				throw new IllegalArgumentException("Unknown performance profile: " + name + " (available: " + names() + ")");
+			}
+			JsonNode browserProfile = profile.path(browser);
+			browserProfile.path("arguments").forEach(arg -> settings.setArgument(arg.asText()));
+			settings.merge(settings.prefs, browserProfile.path("prefs"));
+			settings.merge(settings.capabilities, browserProfile.path("capabilities"));
+		}
+		if (optionsNode != null) {
+			optionsNode.path("arguments").forEach(arg -> settings.setArgument(arg.asText()));
+			settings.merge(settings.prefs, optionsNode.path("prefs"));
+			settings.merge(settings.capabilities, optionsNode.path("capabilities"));
+		}
+		return settings;
+	}
+
+	static final class Settings {
+		// Keyed by flag name so a later argument replaces an earlier one with the same flag
+		private final Map<String, String> arguments = new LinkedHashMap<>();
+		final Map<String, Object> prefs = new LinkedHashMap<>();
+		final Map<String, Object> capabilities = new LinkedHashMap<>();
+
+		List<String> arguments() {
+			return new ArrayList<>(arguments.values());
+		}
+
+		private void setArgument(String argument) {
+			int eq = argument.indexOf('=');
+			arguments.put(eq > 0 ? argument.substring(0, eq) : argument, argument);
+		}
+
+		private void merge(Map<String, Object> target, JsonNode overrides) {
+			Iterator<Map.Entry<String, JsonNode>> fields = overrides.fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				if (field.getValue().isNull()) {
+					target.remove(field.getKey());
+				} else {
+					target.put(field.getKey(), objectMapper.convertValue(field.getValue(), Object.class));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.JavascriptException;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.ScriptKey;
+import org.openqa.selenium.UnpinnedScriptKey;
+import org.openqa.selenium.WebDriver;
+
+/**
+ * A bundled JavaScript resource that is pinned once per driver with {@link JavascriptExecutor#pin(String)}. On
+ * Chromium the function then lives in the page and each call sends a short call expression and the arguments; other
+ * drivers (e.g. Firefox) pin on the client only and still send the full source every time. Drivers that cannot pin
+ * fall back to sending the source.
+ */
+final class PinnedScript {
+	// Sentinel for drivers where pinning failed, so we don't retry on every call
+	private static final ScriptKey UNPINNED = new ScriptKey("unpinned");
+	// Drivers of shared-browser contexts. Chromium keeps pins per host driver and injects them into one tab only,
+	// and unpinning from one context would break its siblings, so these always get the source.
+	private static final Set<WebDriver> SHARED_WINDOWS = ConcurrentHashMap.newKeySet();
+
+	private final String name;
+	private final String source;
+	private final Map<WebDriver, ScriptKey> keys = new ConcurrentHashMap<>();
+
+	PinnedScript(String resource) {
+		this.name = resource;
+		this.source = load(resource);
+	}
+
+	Object execute(WebDriver driver, Object... args) {
+		if (!(driver instanceof JavascriptExecutor)) {
+			throw new IllegalStateException("Current browser doesn't support JavaScript execution");
+		}
+		JavascriptExecutor executor = (JavascriptExecutor) driver;
+		if (SHARED_WINDOWS.contains(driver)) {
+			return executor.executeScript(source, args);
+		}
+		ScriptKey key = keys.computeIfAbsent(driver, d -> {
+			try {
+				return executor.pin(source);
+			} catch (Exception e) {
+				System.err.println("Could not pin " + name + ", sending source per call: " + e.getMessage());
+				return UNPINNED;
+			}
+		});
+		if (key == UNPINNED) {
+			return executor.executeScript(source, args);
+		}
+		try {
+			return executor.executeScript(key, args);
+		} catch (JavascriptException e) {
+			if (!isMissingPin(e, key)) {
+				throw e;
+			}
+			// The pin lives in the window it was made from only (e.g. a tab opened since lacks it), so send the
+			// source from now on
+			keys.put(driver, UNPINNED);
+			return executor.executeScript(source, args);
+		}
+	}
+
+	// Chromium calls window.seleniumPinnedScriptN.apply(...), which fails reading 'apply' of undefined where the
+	// function is missing, and throws "No script with key" once the key was unpinned; other drivers call
+	// __webdriver_<handle>(...), a ReferenceError when missing. Any other error came from the script itself and must
+	// not be retried.
+	private static boolean isMissingPin(JavascriptException e, ScriptKey key) {
+		String message = e.getRawMessage();
+		if (message == null) {
+			return false;
+		}
+		if (message.contains("No script with key")) {
+			return true;
+		}
+		if (message.contains("seleniumPinnedScript") || message.contains("reading 'apply'")) {
+			return true;
+		}
+		return key instanceof UnpinnedScriptKey && message.contains("is not defined")
+				&& message.contains("__webdriver_" + ((UnpinnedScriptKey) key).getScriptHandle());
+	}
+
+	/**
+	 * Marks the driver of a shared-browser context: scripts are sent as source to it and never pinned.
+	 */
+	static void addSharedWindow(WebDriver driver) {
+		SHARED_WINDOWS.add(driver);
+	}
+
+	static void removeSharedWindow(WebDriver driver) {
+		SHARED_WINDOWS.remove(driver);
+	}
+
+	/**
+	 * Drops the pinned script for a driver that is about to quit.
+	 */
+	void release(WebDriver driver) {
+		ScriptKey key = keys.remove(driver);
+		if (key != null && key != UNPINNED) {
+			try {
+				((JavascriptExecutor) driver).unpin(key);
+			} catch (Exception e) {
+				// The session is going away anyway
+			}
+		}
+	}
+
+	private static String load(String resource) {
+		try (InputStream in = PinnedScript.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing resource " + resource);
+			}
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not load " + resource, e);
+		}
+	}
+}
@@ -0,0 +1,293 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Benchmarks start_browser performance profiles against the local fixture pages.
+ *
+ * For every profile (and "default", meaning no profile) a server process is started. Each iteration starts a
+ * browser, navigates to each page, measures the memory of the driver and browser processes under the server and
+ * closes the session. Profiles take turns each iteration so drift on the machine affects all of them alike, and the
+ * first iterations are discarded as warm-up. Reported are the median and the min-max range per metric.
+ *
+ * A page load ends when navigate returns, which depends on the pageLoadStrategy: the load event for {@code normal},
+ * DOMContentLoaded for {@code eager}. So page times stay comparable, every profile runs with {@code normal} unless
+ * {@code --page-load-strategy} says otherwise; {@code profile} keeps each profile's own strategy, and the report then
+ * shows where each row's page times end.
+ *
+ * <pre>
+ * java -cp target/mcp-selenium-0.1.0-jar-with-dependencies.jar io.github.naveenautomation.mcpselenium.ProfileBenchmark \
+ *     [--browser chrome] [--profiles default,minimal,balanced,fidelity] [--iterations 5] [--warmup 1] \
+ *     [--pages index.html,form.html,list.html,gallery.html] [--headless true] [--page-load-strategy normal] \
+ *     [--jvm-opt ...]
+ * </pre>
+ *
+ * Memory is the proportional set size (PSS) summed over the processes, read from /proc; it is reported as n/a on
+ * systems without it.
+ */
+public class ProfileBenchmark {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final String DEFAULT_PROFILE = "default";
+	// --page-load-strategy value that keeps each profile's own strategy
+	private static final String PROFILE_STRATEGY = "profile";
+
+	public static void main(String[] args) {
+		try {
+			run(Options.parse(args));
+		} catch (Exception e) {
+			System.err.println("Benchmark failed: " + e.getMessage());
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+
+	private static void run(Options options) throws Exception {
+		System.out.println("browser=" + options.browser + " headless=" + options.headless + " iterations="
+				+ options.iterations + " warmup=" + options.warmup + " pages=" + options.pages + " pageLoadStrategy="
+				+ options.pageLoadStrategy);
+		System.out.println("os=" + System.getProperty("os.name") + " " + System.getProperty("os.arch") + " cpus="
+				+ Runtime.getRuntime().availableProcessors() + " java=" + System.getProperty("java.version"));
+
+		try (FixtureServer fixtures = FixtureServer.start(null)) {
+			Map<String, McpConnection> servers = new LinkedHashMap<>();
+			Map<String, Samples> results = new LinkedHashMap<>();
+			try {
+				for (String profile : options.profiles) {
+					servers.put(profile, McpConnection.open(servers.size(),
+							McpServerProcess.classpathCommand(options.jvmOptions), options.callTimeoutMillis));
+					results.put(profile, new Samples(options.pages));
+				}
+
+				for (int i = 0; i < options.warmup + options.iterations; i++) {
+					boolean warmup = i < options.warmup;
+					for (String profile : options.profiles) {
+						Samples samples = measure(servers.get(profile), profile, options, fixtures.baseUrl());
+						if (!warmup) {
+							results.get(profile).add(samples);
+						}
+					}
+					System.out.println((warmup ? "warm-up " : "iteration ") + (i + 1) + " done");
+				}
+			} finally {
+				for (McpConnection server : servers.values()) {
+					server.close();
+				}
+			}
+			report(results, options, PerformanceProfiles.load());
+		}
+	}
+
+	private static Samples measure(McpConnection server, String profile, Options options, String baseUrl)
+			throws Exception {
+		Samples samples = new Samples(options.pages);
+
+		ObjectNode browserOptions = objectMapper.createObjectNode();
+		browserOptions.put("headless", options.headless);
+		if (!DEFAULT_PROFILE.equals(profile)) {
+			browserOptions.put("performanceProfile", profile);
+		}
+		if (!PROFILE_STRATEGY.equals(options.pageLoadStrategy)) {
+			browserOptions.putObject("capabilities").put("pageLoadStrategy", options.pageLoadStrategy);
+		}
+		ObjectNode startParams = objectMapper.createObjectNode();
+		startParams.put("browser", options.browser);
+		startParams.set("options", browserOptions);
+
+		long start = System.nanoTime();
+		JsonNode started = server.call("start_browser", startParams);
+		samples.coldStart.add(millisSince(start));
+		if (McpConnection.isError(started)) {
+			throw new IllegalStateException(profile + ": " + McpConnection.text(started));
+		}
+
+		try {
+			for (String page : options.pages) {
+				ObjectNode navigateParams = objectMapper.createObjectNode();
+				navigateParams.put("url", baseUrl + "/" + page);
+				long navigateStart = System.nanoTime();
+				JsonNode navigated = server.call("navigate", navigateParams);
+				samples.pageLoad.get(page).add(millisSince(navigateStart));
+				if (McpConnection.isError(navigated)) {
+					throw new IllegalStateException(profile + ": " + McpConnection.text(navigated));
+				}
+			}
+			samples.memory.add(browserMemoryMegabytes(server.processHandle()));
+		} finally {
+			server.call("close_session", objectMapper.createObjectNode());
+		}
+		return samples;
+	}
+
+	private static double millisSince(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1e6;
+	}
+
+	// Sum over the driver and browser processes below the server, or NaN without /proc
+	private static double browserMemoryMegabytes(ProcessHandle server) {
+		double kilobytes = 0;
+		for (ProcessHandle process : (Iterable<ProcessHandle>) server.descendants()::iterator) {
+			long pss = readProcKilobytes(process.pid(), "smaps_rollup", "Pss:");
+			if (pss < 0) {
+				pss = readProcKilobytes(process.pid(), "status", "VmRSS:");
+			}
+			if (pss < 0) {
+				return Double.NaN;
+			}
+			kilobytes += pss;
+		}
+		return kilobytes / 1024;
+	}
+
+	private static long readProcKilobytes(long pid, String file, String field) {
+		Path path = Paths.get("/proc", Long.toString(pid), file);
+		try {
+			for (String line : Files.readAllLines(path)) {
+				if (line.startsWith(field)) {
+					return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			// process gone or no /proc
+		}
+		return -1;
+	}
+
+	private static void report(Map<String, Samples> results, Options options, PerformanceProfiles profiles) {
+		List<String> pages = options.pages;
+		StringBuilder header = new StringBuilder(
+				String.format("%n%-10s %-22s %-22s %-18s", "profile", "start ms", "memory MB", "pages end at"));
+		for (String page : pages) {
+			header.append(String.format(" %-22s", page + " ms"));
+		}
+		System.out.println(header);
+		for (Map.Entry<String, Samples> entry : results.entrySet()) {
+			Samples samples = entry.getValue();
+			StringBuilder row = new StringBuilder(String.format("%-10s %-22s %-22s %-18s", entry.getKey(),
+					summarize(samples.coldStart), summarize(samples.memory),
+					endPoint(pageLoadStrategy(entry.getKey(), options, profiles))));
+			for (String page : pages) {
+				row.append(String.format(" %-22s", summarize(samples.pageLoad.get(page))));
+			}
+			System.out.println(row);
+		}
+		System.out.println("(median [min-max]; compare page times only between rows that end at the same point)");
+	}
+
+	// The strategy a profile's sessions ran with, as the bundled profile definitions resolve it
+	private static String pageLoadStrategy(String profile, Options options, PerformanceProfiles profiles) {
+		if (!PROFILE_STRATEGY.equals(options.pageLoadStrategy)) {
+			return options.pageLoadStrategy;
+		}
+		Object strategy = profiles.resolve(DEFAULT_PROFILE.equals(profile) ? null : profile, options.browser,
+				null).capabilities.get("pageLoadStrategy");
+		return strategy != null ? strategy.toString() : "normal";
+	}
+
+	private static String endPoint(String pageLoadStrategy) {
+		switch (pageLoadStrategy) {
+		case "normal":
+			return "load";
+		case "eager":
+			return "DOMContentLoaded";
+		case "none":
+			return "navigation start";
+		default:
+			return pageLoadStrategy;
+		}
+	}
+
+	private static String summarize(List<Double> values) {
+		double[] sorted = values.stream().mapToDouble(Double::doubleValue).sorted().toArray();
+		if (sorted.length == 0 || Double.isNaN(sorted[0])) {
+			return "n/a";
+		}
+		int middle = sorted.length / 2;
+		double median = sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+		return String.format("%.0f [%.0f-%.0f]", median, sorted[0], sorted[sorted.length - 1]);
+	}
+
+	private static final class Samples {
+		final List<Double> coldStart = new ArrayList<>();
+		final List<Double> memory = new ArrayList<>();
+		final Map<String, List<Double>> pageLoad = new LinkedHashMap<>();
+
+		Samples(List<String> pages) {
+			for (String page : pages) {
+				pageLoad.put(page, new ArrayList<>());
+			}
+		}
+
+		void add(Samples other) {
+			coldStart.addAll(other.coldStart);
+			memory.addAll(other.memory);
+			other.pageLoad.forEach((page, values) -> pageLoad.get(page).addAll(values));
+		}
+	}
+
+	private static final class Options {
+		String browser = "chrome";
+		boolean headless = true;
+		int iterations = 5;
+		int warmup = 1;
+		long callTimeoutMillis = 120000;
+		List<String> profiles = Arrays.asList(DEFAULT_PROFILE, "minimal", "balanced", "fidelity");
+		List<String> pages = Arrays.asList("index.html", "form.html", "list.html", "gallery.html");
+		String pageLoadStrategy = "normal";
+		List<String> jvmOptions = new ArrayList<>();
+
+		static Options parse(String[] args) {
+			Options options = new Options();
+			for (int i = 0; i < args.length; i++) {
+				String value = i + 1 < args.length ? args[i + 1] : null;
+				switch (args[i]) {
+				case "--browser":
+					options.browser = value;
+					break;
+				case "--headless":
+					options.headless = Boolean.parseBoolean(value);
+					break;
+				case "--iterations":
+					options.iterations = Integer.parseInt(value);
+					break;
+				case "--warmup":
+					options.warmup = Integer.parseInt(value);
+					break;
+				case "--profiles":
+					options.profiles = Arrays.asList(value.split(","));
+					break;
+				case "--pages":
+					options.pages = Arrays.asList(value.split(","));
+					break;
+				case "--page-load-strategy":
+					options.pageLoadStrategy = value;
+					break;
+				case "--jvm-opt":
+					options.jvmOptions.add(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown option: " + args[i]);
+				}
+				i++;
+			}
+			if (options.iterations < 1 || options.warmup < 0) {
+				throw new IllegalArgumentException("--iterations must be positive and --warmup not negative");
+			}
+			if (!Arrays.asList("normal", "eager", "none", PROFILE_STRATEGY).contains(options.pageLoadStrategy)) {
+				throw new IllegalArgumentException("--page-load-strategy must be normal, eager, none or profile");
+			}
+			return options;
+		}
+	}
+}
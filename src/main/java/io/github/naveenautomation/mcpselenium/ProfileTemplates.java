@@ -0,0 +1,330 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of browser profile templates (a Chrome user-data-dir or a Firefox profile with cookies and
+ * storage already in place), cloned per session so sessions start logged in.
+ *
+ * Layout under the cache root ({@code mcp.profiles.dir}, default {@code ~/.mcp-selenium/profiles}):
+ *
+ * <pre>
+ * templates/&lt;sha256&gt;/   immutable template contents
+ * names/&lt;name&gt;          hash the template name points to
+ * sessions/&lt;session&gt;/   per-session clones, deleted when the session closes
+ * sessions/&lt;session&gt;.owner  server that made the clone
+ * </pre>
+ *
+ * Clones whose server is gone, and template contents no name points to, are deleted by {@link #reapOrphans}.
+ *
+ * Clones use a copy-on-write reflink ({@code cp --reflink} on Linux, {@code cp -c} on macOS) when the filesystem
+ * supports it and fall back to a plain copy. Hard links are not used: browsers update SQLite files such as Cookies
+ * in place, which would write through to the template.
+ */
+final class ProfileTemplates {
+	// Lock files a running browser leaves behind; they must not be part of a template
+	private static final Set<String> LOCK_FILES = Set.of("SingletonLock", "SingletonCookie", "SingletonSocket",
+			"lockfile", "parent.lock", ".parentlock", "lock");
+
+	private static final String OWNER_SUFFIX = ".owner";
+	// Unreferenced templates and staging directories younger than this may belong to an import still running
+	private static final long STALE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+	private final Path root;
+
+	ProfileTemplates(Path root) {
+		this.root = root;
+	}
+
+	static ProfileTemplates fromSystemProperties() {
+		String dir = System.getProperty("mcp.profiles.dir",
+				Paths.get(System.getProperty("user.home"), ".mcp-selenium", "profiles").toString());
+		return new ProfileTemplates(Paths.get(dir));
+	}
+
+	/**
+	 * Imports a profile directory under a name and returns its content hash. Identical contents are stored once.
+	 */
+	String register(String name, Path source) throws IOException {
+		checkName(name);
+		if (!Files.isDirectory(source)) {
+			throw new IllegalArgumentException("Profile directory not found: " + source);
+		}
+
+		Path templates = Files.createDirectories(root.resolve("templates"));
+		Path staging = templates.resolve(".staging-" + UUID.randomUUID());
+		String hash;
+		try {
+			hash = copyAndHash(source, staging);
+			Path target = templates.resolve(hash);
+			if (Files.isDirectory(target)) {
+				deleteRecursively(staging);
+			} else {
+				try {
+					Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+				} catch (FileAlreadyExistsException e) {
+					deleteRecursively(staging);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			deleteRecursively(staging);
+			throw e;
+		}
+
+		Path names = Files.createDirectories(root.resolve("names"));
+		Path tmp = names.resolve("." + name + "." + UUID.randomUUID());
+		Files.write(tmp, hash.getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp, names.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return hash;
+	}
+
+	/**
+	 * Clones the named template into a fresh directory for the session and returns it.
+	 */
+	Clone cloneFor(String name, String sessionId) throws IOException {
+		checkName(name);
+		Path nameFile = root.resolve("names").resolve(name);
+		if (!Files.isRegularFile(nameFile)) {
+			throw new IllegalArgumentException("Unknown profile template: " + name);
+		}
+		String hash = new String(Files.readAllBytes(nameFile), StandardCharsets.UTF_8).trim();
+		Path template = root.resolve("templates").resolve(hash);
+		if (!Files.isDirectory(template)) {
+			throw new IllegalStateException("Profile template " + name + " points to missing contents " + hash);
+		}
+
+		Path target = root.resolve("sessions").resolve(sessionId);
+		Files.createDirectories(target.getParent());
+		// Written before the clone, so a clone never exists without its owner
+		Files.write(ownerFile(sessionId),
+				DriverProcesses.describe(ProcessHandle.current()).getBytes(StandardCharsets.UTF_8));
+		if (reflink(template, target)) {
+			return new Clone(target, "reflink");
+		}
+		deleteRecursively(target);
+		copyTree(template, target);
+		return new Clone(target, "copy");
+	}
+
+	/**
+	 * Deletes a session's clone, if it has one.
+	 */
+	void release(String sessionId) {
+		try {
+			deleteRecursively(root.resolve("sessions").resolve(sessionId));
+			Files.deleteIfExists(ownerFile(sessionId));
+		} catch (IOException e) {
+			System.err.println("Error deleting profile clone for " + sessionId + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Cleans up after servers that crashed: deletes session clones whose server is no longer running, staging
+	 * directories of interrupted imports, and template contents that no name points to. Returns the number of
+	 * directories deleted.
+	 */
+	int reapOrphans() {
+		int removed = 0;
+		Path sessions = root.resolve("sessions");
+		if (Files.isDirectory(sessions)) {
+			// A session has a clone directory, an owner file or both
+			Set<String> sessionIds;
+			try (Stream<Path> list = Files.list(sessions)) {
+				sessionIds = list.map(p -> p.getFileName().toString())
+						.map(n -> n.endsWith(OWNER_SUFFIX) ? n.substring(0, n.length() - OWNER_SUFFIX.length()) : n)
+						.collect(Collectors.toSet());
+			} catch (IOException e) {
+				System.err.println("Error reading " + sessions + ": " + e.getMessage());
+				sessionIds = Set.of();
+			}
+			for (String sessionId : sessionIds) {
+				try {
+					if (isOwnerAlive(sessionId)) {
+						continue;
+					}
+					if (Files.isDirectory(sessions.resolve(sessionId))) {
+						deleteRecursively(sessions.resolve(sessionId));
+						removed++;
+					}
+					Files.deleteIfExists(ownerFile(sessionId));
+				} catch (IOException | RuntimeException e) {
+					System.err.println("Error deleting orphaned profile clone " + sessionId + ": " + e.getMessage());
+				}
+			}
+		}
+
+		Path templates = root.resolve("templates");
+		if (Files.isDirectory(templates)) {
+			try (Stream<Path> list = Files.list(templates)) {
+				Set<String> referenced = referencedHashes();
+				long staleBefore = System.currentTimeMillis() - STALE_MILLIS;
+				for (Path template : list.collect(Collectors.toList())) {
+					if (referenced.contains(template.getFileName().toString())
+							|| Files.getLastModifiedTime(template).toMillis() > staleBefore) {
+						continue;
+					}
+					deleteRecursively(template);
+					removed++;
+				}
+			} catch (IOException e) {
+				System.err.println("Error deleting unused profile templates: " + e.getMessage());
+			}
+		}
+		return removed;
+	}
+
+	private boolean isOwnerAlive(String sessionId) throws IOException {
+		Path owner = ownerFile(sessionId);
+		if (!Files.isRegularFile(owner)) {
+			return false;
+		}
+		List<String> lines = Files.readAllLines(owner, StandardCharsets.UTF_8);
+		return !lines.isEmpty() && DriverProcesses.find(lines.get(0)) != null;
+	}
+
+	private Set<String> referencedHashes() throws IOException {
+		Path names = root.resolve("names");
+		if (!Files.isDirectory(names)) {
+			return Set.of();
+		}
+		try (Stream<Path> list = Files.list(names)) {
+			Set<String> hashes = new HashSet<>();
+			for (Path name : list.collect(Collectors.toList())) {
+				if (Files.isRegularFile(name)) {
+					hashes.add(new String(Files.readAllBytes(name), StandardCharsets.UTF_8).trim());
+				}
+			}
+			return hashes;
+		}
+	}
+
+	private Path ownerFile(String sessionId) {
+		return root.resolve("sessions").resolve(sessionId + OWNER_SUFFIX);
+	}
+
+	private static boolean reflink(Path source, Path target) {
+		String os = System.getProperty("os.name", "").toLowerCase();
+		List<String> command;
+		if (os.contains("linux")) {
+			command = List.of("cp", "-R", "--reflink=always", source.toString(), target.toString());
+		} else if (os.contains("mac")) {
+			command = List.of("cp", "-R", "-c", source.toString(), target.toString());
+		} else {
+			return false;
+		}
+		try {
+			Process process = new ProcessBuilder(command).redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+			if (!process.waitFor(2, TimeUnit.MINUTES)) {
+				process.destroyForcibly();
+				return false;
+			}
+			return process.exitValue() == 0;
+		} catch (IOException e) {
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static String copyAndHash(Path source, Path target) throws IOException {
+		MessageDigest digest = sha256();
+		List<Path> files;
+		try (Stream<Path> walk = Files.walk(source)) {
+			files = walk.filter(Files::isRegularFile).filter(p -> !LOCK_FILES.contains(p.getFileName().toString()))
+					.sorted().collect(Collectors.toList());
+		}
+
+		byte[] buffer = new byte[64 * 1024];
+		for (Path file : files) {
+			String relative = source.relativize(file).toString().replace('\\', '/');
+			digest.update(relative.getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+
+			Path destination = target.resolve(relative);
+			Files.createDirectories(destination.getParent());
+			try (InputStream in = Files.newInputStream(file); OutputStream out = Files.newOutputStream(destination)) {
+				int read;
+				while ((read = in.read(buffer)) != -1) {
+					digest.update(buffer, 0, read);
+					out.write(buffer, 0, read);
+				}
+			}
+			digest.update((byte) 0);
+		}
+		Files.createDirectories(target);
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	private static void copyTree(Path source, Path target) throws IOException {
+		try (Stream<Path> walk = Files.walk(source)) {
+			for (Path path : (Iterable<Path>) walk::iterator) {
+				Path destination = target.resolve(source.relativize(path).toString());
+				if (Files.isDirectory(path)) {
+					Files.createDirectories(destination);
+				} else {
+					Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+				}
+			}
+		}
+	}
+
+	private static void deleteRecursively(Path path) throws IOException {
+		if (!Files.exists(path)) {
+			return;
+		}
+		try (Stream<Path> walk = Files.walk(path)) {
+			for (Path p : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+				Files.deleteIfExists(p);
+			}
+		}
+	}
+
+	private static void checkName(String name) {
+		if (!name.matches("[A-Za-z0-9._-]+") || name.startsWith(".")) {
+			throw new IllegalArgumentException("Invalid profile template name: " + name);
+		}
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static final class Clone {
+		final Path directory;
+		final String method;
+
+		Clone(Path directory, String method) {
+			this.directory = directory;
+			this.method = method;
+		}
+	}
+}
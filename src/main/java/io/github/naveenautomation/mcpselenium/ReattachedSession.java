@@ -0,0 +1,74 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.remote.Command;
+import org.openqa.selenium.remote.CommandCodec;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.Dialect;
+import org.openqa.selenium.remote.DriverCommand;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.ResponseCodec;
+import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+/**
+ * A {@link RemoteWebDriver} attached to a session that already exists on a running driver service, e.g. one started
+ * by a previous server process.
+ *
+ * Selenium has no public way to attach to a session, so this executor answers the newSession command itself with the
+ * known session id and capabilities and sends every other command to the service with the W3C codecs.
+ */
+final class ReattachedSession implements CommandExecutor {
+	private final SessionId sessionId;
+	private final Map<String, Object> capabilities;
+	private final HttpClient client;
+	private final CommandCodec<HttpRequest> commandCodec = Dialect.W3C.getCommandCodec();
+	private final ResponseCodec<HttpResponse> responseCodec = Dialect.W3C.getResponseCodec();
+
+	private ReattachedSession(SessionId sessionId, Map<String, Object> capabilities, HttpClient client) {
+		this.sessionId = sessionId;
+		this.capabilities = capabilities;
+		this.client = client;
+	}
+
+	/**
+	 * Attaches to the session. This sends no command; the caller should check the browser still answers.
+	 */
+	static RemoteWebDriver attach(URL serviceUrl, String driverSessionId, Map<String, Object> capabilities,
+			ClientConfig config) {
+		HttpClient client = HttpClient.Factory.createDefault().createClient(config.baseUrl(serviceUrl));
+		return new RemoteWebDriver(new ReattachedSession(new SessionId(driverSessionId), capabilities, client),
+				new ImmutableCapabilities(capabilities));
+	}
+
+	@Override
+	public Response execute(Command command) throws IOException {
+		if (DriverCommand.NEW_SESSION.equals(command.getName())) {
+			Response response = new Response(sessionId);
+			response.setState("success");
+			response.setValue(capabilities);
+			return response;
+		}
+
+		HttpRequest request = commandCodec.encode(command);
+		if (request.getHeader("Content-Type") == null) {
+			request.addHeader("Content-Type", "application/json; charset=utf-8");
+		}
+		Response response = responseCodec.decode(client.execute(request));
+		if (response.getSessionId() == null) {
+			response.setSessionId(sessionId.toString());
+		}
+		if (DriverCommand.QUIT.equals(command.getName())) {
+			client.close();
+		}
+		return response;
+	}
+}
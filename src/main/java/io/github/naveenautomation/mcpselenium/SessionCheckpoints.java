@@ -0,0 +1,200 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+/**
+ * Opt-in checkpoint of browser sessions to a state file ({@code mcp.sessions.stateFile}), so a restarted server can
+ * reattach to browsers that are still running instead of launching new ones.
+ *
+ * Each session is stored with its browser, driver service URL, WebDriver session id and capabilities, the pid file of
+ * its processes, its start_browser options and its last known URL. The file is rewritten atomically on every change,
+ * so it is current even if the server is killed.
+ */
+final class SessionCheckpoints {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Path file;
+	private final ObjectNode sessions = objectMapper.createObjectNode();
+	private String current;
+
+	SessionCheckpoints(Path file) {
+		this.file = file;
+	}
+
+	static SessionCheckpoints fromSystemProperties() {
+		String file = System.getProperty("mcp.sessions.stateFile");
+		return new SessionCheckpoints(file == null || file.isEmpty() ? null : Paths.get(file));
+	}
+
+	boolean isEnabled() {
+		return file != null;
+	}
+
+	synchronized boolean contains(String sessionId) {
+		return sessions.has(sessionId);
+	}
+
+	/**
+	 * Records a session launched on the given driver service.
+	 */
+	synchronized void save(String sessionId, String browser, RemoteWebDriver driver, URL serviceUrl, Path pidFile,
+			JsonNode options, boolean captureLogs) {
+		ObjectNode session = objectMapper.createObjectNode();
+		session.put("browser", browser);
+		session.put("serviceUrl", serviceUrl.toString());
+		session.put("driverSessionId", driver.getSessionId().toString());
+		session.set("capabilities", objectMapper.valueToTree(driver.getCapabilities().asMap()));
+		session.put("pidFile", pidFile != null ? pidFile.toAbsolutePath().toString() : null);
+		session.set("options", options);
+		session.put("captureLogs", captureLogs);
+		session.putNull("url");
+		sessions.set(sessionId, session);
+		write();
+	}
+
+	synchronized void updateUrl(String sessionId, String url) {
+		JsonNode session = sessions.get(sessionId);
+		if (session != null && !url.equals(session.path("url").asText(null))) {
+			((ObjectNode) session).put("url", url);
+			write();
+		}
+	}
+
+	synchronized void setCurrent(String sessionId) {
+		current = sessionId;
+		write();
+	}
+
+	synchronized void remove(String sessionId) {
+		if (sessions.remove(sessionId) != null || sessionId.equals(current)) {
+			if (sessionId.equals(current)) {
+				current = null;
+			}
+			write();
+		}
+	}
+
+	/**
+	 * Asks every browser for its current URL, giving up on those that don't answer within the timeout.
+	 */
+	void refreshUrls(Map<String, WebDriver> drivers, long timeoutMillis) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		List<CompletableFuture<Void>> refreshes = new ArrayList<>();
+		drivers.forEach((sessionId, driver) -> refreshes.add(
+				CompletableFuture.runAsync(() -> updateUrl(sessionId, driver.getCurrentUrl()))));
+		for (CompletableFuture<Void> refresh : refreshes) {
+			try {
+				refresh.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+			} catch (Exception e) {
+				// keep the last recorded URL
+			}
+		}
+	}
+
+	/**
+	 * Reads the sessions checkpointed by a previous server. They are dropped from the file; the caller saves again
+	 * those it reattaches.
+	 */
+	synchronized List<Saved> load() {
+		List<Saved> saved = new ArrayList<>();
+		if (file == null || !Files.isRegularFile(file)) {
+			return saved;
+		}
+		try {
+			JsonNode state = objectMapper.readTree(file.toFile());
+			current = state.path("current").asText(null);
+			Iterator<Map.Entry<String, JsonNode>> fields = state.path("sessions").fields();
+			while (fields.hasNext()) {
+				Map.Entry<String, JsonNode> field = fields.next();
+				try {
+					saved.add(new Saved(field.getKey(), field.getValue()));
+				} catch (MalformedURLException | RuntimeException e) {
+					System.err.println("Skipping checkpointed session " + field.getKey() + ": " + e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Could not read session checkpoints from " + file + ": " + e.getMessage());
+		}
+		return saved;
+	}
+
+	/**
+	 * The session that was current when the state was last written.
+	 */
+	synchronized String current() {
+		return current;
+	}
+
+	synchronized void restore(Saved saved) {
+		sessions.set(saved.sessionId, saved.node);
+		write();
+	}
+
+	private void write() {
+		if (file == null) {
+			return;
+		}
+		ObjectNode state = objectMapper.createObjectNode();
+		state.put("current", current);
+		state.set("sessions", sessions);
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path tmp = directory.resolve("." + file.getFileName() + "." + UUID.randomUUID() + ".tmp");
+			objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), state);
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			System.err.println("Could not write session checkpoints to " + file + ": " + e.getMessage());
+		}
+	}
+
+	static final class Saved {
+		final String sessionId;
+		final String browser;
+		final URL serviceUrl;
+		final String driverSessionId;
+		final Map<String, Object> capabilities;
+		final Path pidFile;
+		final JsonNode options;
+		final boolean captureLogs;
+		final String url;
+		private final JsonNode node;
+
+		private Saved(String sessionId, JsonNode node) throws MalformedURLException {
+			this.sessionId = sessionId;
+			this.node = node;
+			this.browser = node.get("browser").asText();
+			this.serviceUrl = new URL(node.get("serviceUrl").asText());
+			this.driverSessionId = node.get("driverSessionId").asText();
+			this.capabilities = objectMapper.convertValue(node.get("capabilities"),
+					new TypeReference<Map<String, Object>>() {
+					});
+			String pidFile = node.path("pidFile").asText(null);
+			this.pidFile = pidFile != null ? Paths.get(pidFile) : null;
+			JsonNode options = node.get("options");
+			this.options = options != null && !options.isNull() ? options : null;
+			this.captureLogs = node.path("captureLogs").asBoolean();
+			this.url = node.path("url").asText(null);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.LogInspector;
+import org.openqa.selenium.bidi.Network;
+import org.openqa.selenium.bidi.log.BaseLogEntry;
+import org.openqa.selenium.bidi.log.LogLevel;
+import org.openqa.selenium.bidi.network.ResponseData;
+
+/**
+ * Subscribes to a session's console and network events over WebDriver BiDi and records them in an
+ * {@link EventRingBuffer}. The driver must have been started with the {@code webSocketUrl} capability.
+ */
+final class SessionEventCapture implements AutoCloseable {
+	private final EventRingBuffer buffer;
+	private final List<AutoCloseable> subscriptions = new ArrayList<>();
+
+	private SessionEventCapture(int capacity) {
+		this.buffer = new EventRingBuffer(capacity);
+	}
+
+	static SessionEventCapture attach(WebDriver driver, int capacity) {
+		SessionEventCapture capture = new SessionEventCapture(capacity);
+		EventRingBuffer buffer = capture.buffer;
+		try {
+			LogInspector logInspector = new LogInspector(driver);
+			capture.subscriptions.add(logInspector);
+			logInspector.onConsoleEntry(entry -> buffer.record(EventRingBuffer.KIND_CONSOLE, level(entry),
+					entry.getTimestamp(), entry.getMethod() + " " + entry.getText()));
+			logInspector.onJavaScriptException(entry -> buffer.record(EventRingBuffer.KIND_CONSOLE,
+					EventRingBuffer.LEVEL_ERROR, entry.getTimestamp(), "uncaught " + entry.getText()));
+
+			Network network = new Network(driver);
+			capture.subscriptions.add(network);
+			network.onResponseCompleted(details -> {
+				ResponseData response = details.getResponseData();
+				long status = response.getStatus();
+				byte level = status >= 400 ? EventRingBuffer.LEVEL_ERROR : EventRingBuffer.LEVEL_INFO;
+				buffer.record(EventRingBuffer.KIND_NETWORK, level, details.getTimestamp(),
+						details.getRequest().getMethod() + " " + response.getUrl() + " " + status
+								+ (response.isFromCache() ? " (cache)" : ""));
+			});
+			network.onFetchError(error -> buffer.record(EventRingBuffer.KIND_NETWORK, EventRingBuffer.LEVEL_ERROR,
+					error.getTimestamp(), error.getRequest().getMethod() + " " + error.getRequest().getUrl()
+							+ " failed: " + error.getErrorText()));
+		} catch (RuntimeException e) {
+			capture.close();
+			throw e;
+		}
+		return capture;
+	}
+
+	EventRingBuffer buffer() {
+		return buffer;
+	}
+
+	@Override
+	public void close() {
+		for (AutoCloseable subscription : subscriptions) {
+			try {
+				subscription.close();
+			} catch (Exception e) {
+				// The session is going away anyway
+			}
+		}
+		subscriptions.clear();
+	}
+
+	private static byte level(BaseLogEntry entry) {
+		LogLevel level = entry.getLevel();
+		if (level == null) {
+			return EventRingBuffer.LEVEL_INFO;
+		}
+		switch (level) {
+		case DEBUG:
+			return EventRingBuffer.LEVEL_DEBUG;
+		case WARNING:
+			return EventRingBuffer.LEVEL_WARN;
+		case ERROR:
+			return EventRingBuffer.LEVEL_ERROR;
+		default:
+			return EventRingBuffer.LEVEL_INFO;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.support.ui.ExpectedCondition;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+/**
+ * Fail-fast element wait. While the condition is unmet it also checks whether the locator matches nothing and the
+ * page has gone quiet (no DOM mutations and no fetch/XHR in flight for the settle window). If so, the element is
+ * not going to appear and the wait fails immediately with near-miss suggestions instead of running out the timeout.
+ */
+final class SettlingWait {
+	private static final long POLL_MILLIS = 250;
+	private static final int MAX_SUGGESTIONS = 5;
+
+	private static final PinnedScript SETTLE_SCRIPT = new PinnedScript("dom-settle.js");
+	private static final PinnedScript NEAR_MISS_SCRIPT = new PinnedScript("near-miss.js");
+
+	private SettlingWait() {
+	}
+
+	static <T> T until(WebDriver driver, String by, String value, By locator, ExpectedCondition<T> condition,
+			long timeoutMillis, long settleMillis) {
+		WebDriverWait wait = new WebDriverWait(driver, Duration.ofMillis(timeoutMillis), Duration.ofMillis(POLL_MILLIS));
+		return wait.until(d -> {
+			T result = null;
+			try {
+				result = condition.apply(d);
+			} catch (NotFoundException | StaleElementReferenceException e) {
+				// Treated like an unmet condition below
+			}
+			if (result != null && !Boolean.FALSE.equals(result)) {
+				return result;
+			}
+			if (d.findElements(locator).isEmpty() && isSettled(d, settleMillis)) {
+				throw new ElementAbsentException(absentMessage(d, by, value, locator, settleMillis));
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Drops the pinned scripts for a driver that is about to quit.
+	 */
+	static void release(WebDriver driver) {
+		SETTLE_SCRIPT.release(driver);
+		NEAR_MISS_SCRIPT.release(driver);
+	}
+
+	/**
+	 * True once the page is loaded, has no fetch/XHR in flight and has had no DOM mutations for the settle window.
+	 */
+	static boolean isSettled(WebDriver driver, long settleMillis) {
+		Object probe = SETTLE_SCRIPT.execute(driver);
+		if (!(probe instanceof Map)) {
+			return false;
+		}
+		Map<?, ?> state = (Map<?, ?>) probe;
+		return Boolean.TRUE.equals(state.get("ready")) && ((Number) state.get("pending")).longValue() == 0
+				&& ((Number) state.get("quietFor")).longValue() >= settleMillis;
+	}
+
+	private static String absentMessage(WebDriver driver, String by, String value, By locator, long settleMillis) {
+		String message = "No element matches " + locator + " and the page has been idle for " + settleMillis + " ms";
+		try {
+			Object suggestions = NEAR_MISS_SCRIPT.execute(driver, by.toLowerCase(), value, MAX_SUGGESTIONS);
+			if (suggestions instanceof List && !((List<?>) suggestions).isEmpty()) {
+				message += ". Did you mean: " + String.join(", ", ((List<?>) suggestions).stream()
+						.map(String::valueOf).toArray(String[]::new));
+			}
+		} catch (WebDriverException e) {
+			// Suggestions are best effort
+		}
+		return message;
+	}
+
+	static final class ElementAbsentException extends WebDriverException {
+		private static final long serialVersionUID = 1L;
+
+		ElementAbsentException(String message) {
+			super(message);
+		}
+
+		@Override
+		public String getMessage() {
+			// Skip the build and driver info WebDriverException appends
+			return getRawMessage();
+		}
+	}
+}
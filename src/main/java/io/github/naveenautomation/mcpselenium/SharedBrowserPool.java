@@ -0,0 +1,221 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.BiDi;
+import org.openqa.selenium.bidi.Command;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.support.decorators.Decorated;
+import org.openqa.selenium.support.decorators.WebDriverDecorator;
+
+/**
+ * Lightweight sessions: each logical session is an isolated browser context (its own cookies and storage) opened in
+ * a window of a shared browser process, instead of a whole browser of its own.
+ *
+ * Chrome contexts are created with CDP {@code Target.createBrowserContext}; Firefox contexts are BiDi user contexts,
+ * which need the host to be started with the {@code webSocketUrl} capability. The driver handed out for a session is
+ * a decorator over the shared host driver that switches to the session's window before every call.
+ */
+final class SharedBrowserPool {
+	private final Map<String, List<Host>> hostsByKey = new ConcurrentHashMap<>();
+	private final Map<String, Context> contexts = new ConcurrentHashMap<>();
+	private final Consumer<WebDriver> quitter;
+
+	/**
+	 * {@code quitter} shuts down a host browser once its last session is closed.
+	 */
+	SharedBrowserPool(Consumer<WebDriver> quitter) {
+		this.quitter = quitter;
+	}
+
+	/**
+	 * Opens a new isolated context for the session on a host with spare capacity, starting a host if needed.
+	 */
+	synchronized WebDriver open(String sessionId, String key, String browser, int maxContexts,
+			Supplier<WebDriver> hostFactory) {
+		List<Host> hosts = hostsByKey.computeIfAbsent(key, k -> new ArrayList<>());
+		Host host = null;
+		for (Host candidate : hosts) {
+			if (candidate.sessions.size() < maxContexts) {
+				host = candidate;
+				break;
+			}
+		}
+		// A new host joins the pool only once it carries a context, so a failed start leaves no browser behind
+		WebDriver started = host == null ? hostFactory.get() : null;
+		Context context;
+		try {
+			if (started != null) {
+				host = new Host(key, browser, started);
+			}
+			context = host.createContext(sessionId);
+		} catch (RuntimeException e) {
+			if (started != null) {
+				quitter.accept(started);
+			}
+			throw e;
+		}
+		if (started != null) {
+			hosts.add(host);
+		}
+		PinnedScript.addSharedWindow(context.driver);
+		contexts.put(sessionId, context);
+		return context.driver;
+	}
+
+	boolean isShared(String sessionId) {
+		return contexts.containsKey(sessionId);
+	}
+
+	/**
+	 * Lock to hold while running a tool for the session from a thread other than the tool loop. Sessions on one host
+	 * share its current window, so their calls must not interleave. Null for sessions not in the pool.
+	 */
+	Lock commandLock(String sessionId) {
+		Context context = contexts.get(sessionId);
+		return context != null ? context.host.commandLock : null;
+	}
+
+	/**
+	 * Disposes the session's context, and quits its host once no sessions are left on it.
+	 */
+	synchronized void close(String sessionId) {
+		Context context = contexts.remove(sessionId);
+		if (context == null) {
+			return;
+		}
+		PinnedScript.removeSharedWindow(context.driver);
+		Host host = context.host;
+		try {
+			host.disposeContext(context);
+		} finally {
+			if (host.sessions.isEmpty()) {
+				hostsByKey.getOrDefault(host.key, new ArrayList<>()).remove(host);
+				quitter.accept(host.driver);
+			}
+		}
+	}
+
+	/**
+	 * Forgets every session and returns the host drivers for the caller to quit; used on shutdown.
+	 */
+	synchronized List<WebDriver> drainHosts() {
+		List<WebDriver> hostDrivers = new ArrayList<>();
+		for (List<Host> hosts : hostsByKey.values()) {
+			for (Host host : hosts) {
+				hostDrivers.add(host.driver);
+			}
+		}
+		hostsByKey.clear();
+		contexts.values().forEach(context -> PinnedScript.removeSharedWindow(context.driver));
+		contexts.clear();
+		return hostDrivers;
+	}
+
+	private static final class Host {
+		final String key;
+		final String browser;
+		final WebDriver driver;
+		final Set<String> sessions = new HashSet<>();
+		final Lock commandLock = new ReentrantLock();
+		String activeHandle;
+
+		Host(String key, String browser, WebDriver driver) {
+			this.key = key;
+			this.browser = browser;
+			this.driver = driver;
+			this.activeHandle = driver.getWindowHandle();
+		}
+
+		Context createContext(String sessionId) {
+			Set<String> before = driver.getWindowHandles();
+			String contextId;
+			if ("chrome".equalsIgnoreCase(browser)) {
+				HasCdp cdp = (HasCdp) driver;
+				contextId = (String) cdp.executeCdpCommand("Target.createBrowserContext", Map.of())
+						.get("browserContextId");
+				cdp.executeCdpCommand("Target.createTarget",
+						Map.of("url", "about:blank", "browserContextId", contextId, "newWindow", true));
+			} else {
+				BiDi bidi = ((HasBiDi) driver).getBiDi();
+				Map<?, ?> userContext = bidi.send(new Command<>("browser.createUserContext", Map.of(), Map.class));
+				contextId = (String) userContext.get("userContext");
+				bidi.send(new Command<>("browsingContext.create", Map.of("type", "window", "userContext", contextId),
+						Map.class));
+			}
+
+			Set<String> after = new HashSet<>(driver.getWindowHandles());
+			after.removeAll(before);
+			if (after.isEmpty()) {
+				throw new IllegalStateException("Could not find the window of the new browser context");
+			}
+			String handle = after.iterator().next();
+			sessions.add(sessionId);
+			return new Context(this, sessionId, contextId, handle);
+		}
+
+		void disposeContext(Context context) {
+			sessions.remove(context.sessionId);
+			if (context.handle.equals(activeHandle)) {
+				activeHandle = null;
+			}
+			if (!sessions.isEmpty()) {
+				// Closing the context closes its windows; keep the host on a live window
+				String fallback = driver.getWindowHandles().stream().filter(h -> !h.equals(context.handle))
+						.findFirst().orElse(null);
+				if (fallback != null) {
+					driver.switchTo().window(fallback);
+					activeHandle = fallback;
+				}
+			}
+			if ("chrome".equalsIgnoreCase(browser)) {
+				((HasCdp) driver).executeCdpCommand("Target.disposeBrowserContext",
+						Map.of("browserContextId", context.contextId));
+			} else {
+				((HasBiDi) driver).getBiDi().send(
+						new Command<>("browser.removeUserContext", Map.of("userContext", context.contextId), Map.class));
+			}
+		}
+
+		synchronized void activate(String handle) {
+			if (!handle.equals(activeHandle)) {
+				driver.switchTo().window(handle);
+				activeHandle = handle;
+			}
+		}
+	}
+
+	private static final class Context {
+		final Host host;
+		final String sessionId;
+		final String contextId;
+		final String handle;
+		final WebDriver driver;
+
+		Context(Host host, String sessionId, String contextId, String handle) {
+			this.host = host;
+			this.sessionId = sessionId;
+			this.contextId = contextId;
+			this.handle = handle;
+			this.driver = new WebDriverDecorator<WebDriver>() {
+				@Override
+				public void beforeCall(Decorated<?> target, Method method, Object[] args) {
+					host.activate(handle);
+					super.beforeCall(target, method, args);
+				}
+			}.decorate(host.driver);
+		}
+	}
+}
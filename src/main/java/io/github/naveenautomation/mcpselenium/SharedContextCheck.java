@@ -0,0 +1,130 @@
+package io.github.naveenautomation.mcpselenium;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Checks the script locators and fill_form in shared-browser sessions, against a real browser.
+ *
+ * Two shared sessions are opened in one browser process on the bundled form fixture. Text and role locators and
+ * fill_form must work in both contexts, and keep working in the first one after the second is closed. Exits with
+ * status 1 on the first failed check.
+ *
+ * <pre>
+ * java -cp target/mcp-selenium-0.1.0-jar-with-dependencies.jar io.github.naveenautomation.mcpselenium.SharedContextCheck \
+ *     [--browser chrome] [--headless true]
+ * </pre>
+ */
+public class SharedContextCheck {
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+	private static final String SESSION_PREFIX = "session_id: ";
+
+	public static void main(String[] args) {
+		String browser = "chrome";
+		boolean headless = true;
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if ("--browser".equals(args[i])) {
+				browser = args[i + 1];
+			} else if ("--headless".equals(args[i])) {
+				headless = Boolean.parseBoolean(args[i + 1]);
+			} else {
+				System.err.println("Unknown option " + args[i]);
+				System.exit(2);
+			}
+		}
+		try {
+			run(browser, headless);
+			System.out.println("All shared context checks passed");
+		} catch (Exception e) {
+			System.err.println("Shared context check failed: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static void run(String browser, boolean headless) throws Exception {
+		try (FixtureServer fixtures = FixtureServer.start(null)) {
+			McpConnection server = McpConnection.open(0, McpServerProcess.classpathCommand(new ArrayList<>()), 60000);
+			try {
+				List<String> sessions = new ArrayList<>();
+				for (int i = 0; i < 2; i++) {
+					ObjectNode params = objectMapper.createObjectNode();
+					params.put("browser", browser);
+					params.putObject("options").put("shared", true).put("headless", headless);
+					String text = expectOk(server.call("start_browser", params), "start shared session " + (i + 1));
+					String sessionId = text.substring(text.indexOf(SESSION_PREFIX) + SESSION_PREFIX.length());
+					sessions.add(sessionId.split("\\s")[0]);
+				}
+
+				ObjectNode navigate = objectMapper.createObjectNode();
+				navigate.put("url", fixtures.baseUrl() + "/form.html");
+				fanOut(server, sessions, "navigate", navigate, "navigate both contexts");
+				fanOut(server, sessions, "find_element", locator("text", "Sign up"), "text locator in both contexts");
+				fanOut(server, sessions, "find_element", locator("role", "button"), "role locator in both contexts");
+				fanOut(server, sessions, "fill_form", fields(), "fill_form in both contexts");
+
+				// close_session closes the current session, the second one
+				expectOk(server.call("close_session", objectMapper.createObjectNode()), "close the second context");
+				List<String> first = sessions.subList(0, 1);
+				fanOut(server, first, "find_element", locator("text", "Sign up"), "text locator after a sibling closed");
+				fanOut(server, first, "fill_form", fields(), "fill_form after a sibling closed");
+			} finally {
+				server.close();
+			}
+		}
+	}
+
+	private static ObjectNode locator(String by, String value) {
+		ObjectNode params = objectMapper.createObjectNode();
+		params.put("by", by);
+		params.put("value", value);
+		params.put("timeout", 5000);
+		return params;
+	}
+
+	private static ObjectNode fields() {
+		ObjectNode params = objectMapper.createObjectNode();
+		ArrayNode fields = params.putArray("fields");
+		fields.addObject().put("by", "id").put("value", "email").put("text", "user@example.com");
+		fields.addObject().put("by", "name").put("value", "country").put("text", "Germany");
+		params.put("timeout", 5000);
+		return params;
+	}
+
+	private static void fanOut(McpConnection server, List<String> sessions, String tool, JsonNode toolParams,
+			String description) throws Exception {
+		ObjectNode params = objectMapper.createObjectNode();
+		ArrayNode ids = params.putArray("sessions");
+		sessions.forEach(ids::add);
+		params.put("tool", tool);
+		params.set("params", toolParams);
+		JsonNode response = server.call("fan_out", params);
+		String summary = expectOk(response, description);
+		String expected = sessions.size() + " ok,";
+		if (!summary.contains(expected)) {
+			StringBuilder details = new StringBuilder(summary);
+			response.path("content").forEach(item -> details.append("\n  ").append(item.path("text").asText()));
+			throw new IllegalStateException(description + ": " + details);
+		}
+		// fill_form reports failed fields in its text rather than as an error
+		response.path("content").forEach(item -> {
+			String text = item.path("text").asText();
+			if (text.contains("[error]") || text.contains("[missing]")) {
+				throw new IllegalStateException(description + ": " + text);
+			}
+		});
+		System.out.println("ok: " + description);
+	}
+
+	private static String expectOk(JsonNode response, String description) {
+		String text = McpConnection.text(response);
+		if (McpConnection.isError(response)) {
+			throw new IllegalStateException(description + ": " + text);
+		}
+		return text;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * DOM quiescence probe used by SettlingWait.
+ *
+ * The first call on a page installs a MutationObserver and counts in-flight fetch/XHR requests; resource timing
+ * entries are also treated as activity. Returns {quietFor: ms since the last mutation or network activity,
+ * pending: in-flight requests, ready: document.readyState is "complete"}.
+ */
+var state = window.__mcpSettle;
+var now = Date.now();
+
+if (!state) {
+	state = window.__mcpSettle = {last: now, pending: 0, resources: 0};
+	var touch = function () {
+		state.last = Date.now();
+	};
+	var done = function () {
+		state.pending = Math.max(0, state.pending - 1);
+		touch();
+	};
+
+	new MutationObserver(touch).observe(document, {subtree: true, childList: true, attributes: true, characterData: true});
+
+	if (window.fetch) {
+		var originalFetch = window.fetch;
+		window.fetch = function () {
+			state.pending++;
+			touch();
+			var promise = originalFetch.apply(this, arguments);
+			promise.then(done, done);
+			return promise;
+		};
+	}
+
+	var originalSend = XMLHttpRequest.prototype.send;
+	XMLHttpRequest.prototype.send = function () {
+		state.pending++;
+		touch();
+		this.addEventListener('loadend', done);
+		return originalSend.apply(this, arguments);
+	};
+}
+
+var resources = window.performance && performance.getEntriesByType ? performance.getEntriesByType('resource').length : 0;
+if (resources !== state.resources) {
+	state.resources = resources;
+	state.last = now;
+}
+
+return {quietFor: now - state.last, pending: state.pending, ready: document.readyState === 'complete'};
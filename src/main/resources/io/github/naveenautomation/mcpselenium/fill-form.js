@@ -0,0 +1,152 @@
+/*
+ * Form filler pinned once per browser session by McpSeleniumServer.fillForm.
+ *
+ * arguments[0] - fields, each [by, locatorValue, resolvedElement or null, value, forceNative, locatorError or null]
+ * arguments[1] - when false, nothing is filled if any field is still missing, so the caller can keep waiting
+ *
+ * Returns {missing: [index...]} while waiting, otherwise {results: [{status, message, element}]} where status is
+ * "ok", "native" (caller must type with real key events, optionally clearing first), "missing" or "error".
+ */
+var fields = arguments[0];
+var allowPartial = arguments[1];
+
+function resolve(by, value) {
+	switch (by) {
+	case 'id':
+		return document.getElementById(value);
+	case 'css':
+		return document.querySelector(value);
+	case 'xpath':
+		return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+	case 'name':
+		return document.getElementsByName(value)[0] || null;
+	case 'tag':
+		return document.getElementsByTagName(value)[0] || null;
+	case 'class':
+		return document.getElementsByClassName(value)[0] || null;
+	default:
+		return null;
+	}
+}
+
+// A locator that can't be evaluated (bad css or xpath) fails its own field; waiting won't fix it
+var elements = [];
+var locatorErrors = [];
+var missing = [];
+for (var i = 0; i < fields.length; i++) {
+	var el = null;
+	if (fields[i][5]) {
+		// A script locator the caller couldn't evaluate
+		locatorErrors[i] = fields[i][5];
+	} else {
+		try {
+			el = fields[i][2] || resolve(fields[i][0], fields[i][1]);
+		} catch (e) {
+			locatorErrors[i] = String(e && e.message || e);
+		}
+	}
+	elements.push(el);
+	if (!el && !locatorErrors[i]) {
+		missing.push(i);
+	}
+}
+if (missing.length && !allowPartial) {
+	return {missing: missing};
+}
+
+function truthy(value) {
+	return value === true || /^(true|on|yes|checked|1)$/i.test(String(value));
+}
+
+function fire(el, type) {
+	el.dispatchEvent(new Event(type, {bubbles: true}));
+}
+
+// Uses the prototype setter so framework-tracked inputs (React etc.) see the change
+function setValue(el, value) {
+	var proto = el.tagName === 'TEXTAREA' ? HTMLTextAreaElement.prototype : HTMLInputElement.prototype;
+	var descriptor = Object.getOwnPropertyDescriptor(proto, 'value');
+	if (descriptor && descriptor.set) {
+		descriptor.set.call(el, value);
+	} else {
+		el.value = value;
+	}
+	fire(el, 'input');
+	fire(el, 'change');
+}
+
+function selectOption(el, value) {
+	var wanted = Array.isArray(value) ? value.map(String) : [String(value)];
+	var matched = 0;
+	for (var i = 0; i < el.options.length; i++) {
+		var option = el.options[i];
+		var hit = wanted.indexOf(option.value) >= 0 || wanted.indexOf(option.text.trim()) >= 0;
+		if (el.multiple) {
+			option.selected = hit;
+		} else if (hit && !matched) {
+			el.selectedIndex = i;
+		}
+		if (hit) {
+			matched++;
+		}
+	}
+	if (!matched) {
+		return 'no option matching ' + wanted.join(', ');
+	}
+	fire(el, 'input');
+	fire(el, 'change');
+	return null;
+}
+
+function fill(el, value, forceNative) {
+	if (el.disabled) {
+		return {status: 'error', message: 'element is disabled'};
+	}
+	var tag = el.tagName;
+	var type = (el.getAttribute('type') || '').toLowerCase();
+
+	if (tag === 'SELECT') {
+		var problem = selectOption(el, value);
+		return problem ? {status: 'error', message: problem} : {status: 'ok', message: 'selected'};
+	}
+	if (tag === 'INPUT' && (type === 'checkbox' || type === 'radio')) {
+		var wanted = type === 'radio' ? true : truthy(value);
+		if (el.checked !== wanted) {
+			// click() runs the page's handlers exactly like a user toggle
+			el.click();
+		}
+		return {status: 'ok', message: el.checked ? 'checked' : 'unchecked'};
+	}
+	if (tag === 'INPUT' && type === 'file') {
+		return {status: 'native', element: el, clear: false};
+	}
+	if (forceNative || el.isContentEditable) {
+		return {status: 'native', element: el, clear: true};
+	}
+	if (tag === 'INPUT' || tag === 'TEXTAREA') {
+		if (el.readOnly) {
+			return {status: 'error', message: 'element is read-only'};
+		}
+		setValue(el, value === null ? '' : String(value));
+		return {status: 'ok', message: 'value set'};
+	}
+	return {status: 'native', element: el, clear: true};
+}
+
+var results = [];
+for (var j = 0; j < fields.length; j++) {
+	if (locatorErrors[j]) {
+		results.push({status: 'error', message: 'invalid locator: ' + locatorErrors[j]});
+		continue;
+	}
+	if (!elements[j]) {
+		results.push({status: 'missing', message: 'element not found'});
+		continue;
+	}
+	try {
+		results.push(fill(elements[j], fields[j][3], fields[j][4]));
+	} catch (e) {
+		results.push({status: 'error', message: String(e && e.message || e)});
+	}
+}
+return {results: results};
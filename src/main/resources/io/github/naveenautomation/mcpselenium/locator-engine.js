@@ -0,0 +1,175 @@
+/*
+ * Locator engine run by LocatorEngine, pinned per browser session where the driver supports it.
+ *
+ * arguments[0] - strategy: "text", "role" or "shadow_css"
+ * arguments[1] - locator value
+ * arguments[2] - optional element to search under (null for the whole document)
+ *
+ * Returns an array of matching elements in document order.
+ */
+var strategy = arguments[0];
+var value = arguments[1];
+var scope = arguments[2] || document;
+
+function normalize(text) {
+	return (text || '').replace(/\s+/g, ' ').trim();
+}
+
+// Visits root and every open shadow root below it.
+function collectRoots(root, out) {
+	out.push(root);
+	var walker = document.createTreeWalker(root, NodeFilter.SHOW_ELEMENT);
+	var node = walker.currentNode;
+	while (node) {
+		if (node.shadowRoot) {
+			collectRoots(node.shadowRoot, out);
+		}
+		node = walker.nextNode();
+	}
+	return out;
+}
+
+// Each root is visited once and querySelectorAll doesn't cross into shadow trees, so matches never repeat
+function deepQueryAll(root, selector) {
+	var result = [];
+	var roots = collectRoots(root, []);
+	for (var i = 0; i < roots.length; i++) {
+		var found = roots[i].querySelectorAll(selector);
+		for (var j = 0; j < found.length; j++) {
+			result.push(found[j]);
+		}
+	}
+	return result;
+}
+
+function allElements(root) {
+	return deepQueryAll(root, '*');
+}
+
+function byShadowCss(root, selector) {
+	var segments = selector.split('>>>');
+	var current = deepQueryAll(root, segments[0].trim());
+	for (var i = 1; i < segments.length; i++) {
+		var next = [];
+		var segment = segments[i].trim();
+		for (var j = 0; j < current.length; j++) {
+			if (current[j].shadowRoot) {
+				var found = current[j].shadowRoot.querySelectorAll(segment);
+				for (var k = 0; k < found.length; k++) {
+					next.push(found[k]);
+				}
+			}
+		}
+		current = next;
+	}
+	return current;
+}
+
+// Deepest elements whose normalized text equals the wanted text.
+function byText(root, wanted) {
+	var target = normalize(wanted);
+	var matches = allElements(root).filter(function (el) {
+		var tag = el.tagName;
+		if (tag === 'SCRIPT' || tag === 'STYLE' || tag === 'NOSCRIPT') {
+			return false;
+		}
+		if ((tag === 'INPUT' && /^(button|submit|reset)$/i.test(el.type))) {
+			return normalize(el.value) === target;
+		}
+		return normalize(el.textContent) === target;
+	});
+	// Matches are in document order per root and an element's descendants directly follow it, so a match holds
+	// another match exactly when it holds the next one
+	return matches.filter(function (el, i) {
+		return i + 1 === matches.length || !el.contains(matches[i + 1]);
+	});
+}
+
+var INPUT_ROLES = {
+	button: 'button', submit: 'button', reset: 'button', image: 'button',
+	checkbox: 'checkbox', radio: 'radio', range: 'slider', number: 'spinbutton',
+	search: 'searchbox', email: 'textbox', tel: 'textbox', text: 'textbox', url: 'textbox', password: 'textbox'
+};
+
+var TAG_ROLES = {
+	BUTTON: 'button', TEXTAREA: 'textbox', NAV: 'navigation', MAIN: 'main', HEADER: 'banner',
+	FOOTER: 'contentinfo', ASIDE: 'complementary', UL: 'list', OL: 'list', LI: 'listitem',
+	TABLE: 'table', TR: 'row', TD: 'cell', TH: 'columnheader', FORM: 'form', DIALOG: 'dialog',
+	IMG: 'img', OPTION: 'option', H1: 'heading', H2: 'heading', H3: 'heading', H4: 'heading',
+	H5: 'heading', H6: 'heading'
+};
+
+function roleOf(el) {
+	var explicit = el.getAttribute('role');
+	if (explicit) {
+		return explicit.trim().split(/\s+/)[0].toLowerCase();
+	}
+	var tag = el.tagName;
+	if (tag === 'A' || tag === 'AREA') {
+		return el.hasAttribute('href') ? 'link' : null;
+	}
+	if (tag === 'INPUT') {
+		return INPUT_ROLES[(el.getAttribute('type') || 'text').toLowerCase()] || null;
+	}
+	if (tag === 'SELECT') {
+		return el.multiple || el.size > 1 ? 'listbox' : 'combobox';
+	}
+	return TAG_ROLES[tag] || null;
+}
+
+function accessibleName(el) {
+	var labelledBy = el.getAttribute('aria-labelledby');
+	if (labelledBy) {
+		var root = el.getRootNode();
+		var parts = labelledBy.split(/\s+/).map(function (id) {
+			var ref = root.getElementById ? root.getElementById(id) : document.getElementById(id);
+			return ref ? normalize(ref.textContent) : '';
+		});
+		return normalize(parts.join(' '));
+	}
+	var label = el.getAttribute('aria-label');
+	if (label) {
+		return normalize(label);
+	}
+	if (el.labels && el.labels.length) {
+		return normalize(Array.prototype.map.call(el.labels, function (l) {
+			return l.textContent;
+		}).join(' '));
+	}
+	if (el.tagName === 'INPUT' && /^(button|submit|reset)$/i.test(el.type)) {
+		return normalize(el.value);
+	}
+	var alt = el.getAttribute('alt');
+	if (alt) {
+		return normalize(alt);
+	}
+	var text = normalize(el.textContent);
+	if (text) {
+		return text;
+	}
+	return normalize(el.getAttribute('title') || el.getAttribute('placeholder'));
+}
+
+// "button" or "button:Sign in" (role, then optional accessible name).
+function byRole(root, spec) {
+	var separator = spec.indexOf(':');
+	var role = (separator < 0 ? spec : spec.substring(0, separator)).trim().toLowerCase();
+	var name = separator < 0 ? null : normalize(spec.substring(separator + 1)).toLowerCase();
+	return allElements(root).filter(function (el) {
+		if (roleOf(el) !== role) {
+			return false;
+		}
+		return name === null || accessibleName(el).toLowerCase() === name;
+	});
+}
+
+switch (strategy) {
+case 'text':
+	return byText(scope, value);
+case 'role':
+	return byRole(scope, value);
+case 'shadow_css':
+	return byShadowCss(scope, value);
+default:
+	throw new Error('Unsupported locator strategy: ' + strategy);
+}
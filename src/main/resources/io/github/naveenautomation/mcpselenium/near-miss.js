@@ -0,0 +1,96 @@
+/*
+ * Suggests locators that are close to one that matched nothing, used by SettlingWait.
+ *
+ * arguments[0] - locator strategy
+ * arguments[1] - locator value
+ * arguments[2] - maximum number of suggestions
+ *
+ * Returns suggestions such as "id=login-button" or "text=Sign in", closest first.
+ */
+var by = arguments[0];
+var value = arguments[1];
+var max = arguments[2];
+
+// The identifier-ish part of the locator that the user most likely got wrong
+function needleOf(by, value) {
+	if (by === 'css' || by === 'shadow_css') {
+		var parts = value.split(/>>>|[\s>+~]+/).filter(Boolean);
+		var last = parts.length ? parts[parts.length - 1] : value;
+		var match = last.match(/[#.]([\w-]+)|\[[\w-]+[*^$|~]?=["']?([^"'\]]+)/);
+		return match ? (match[1] || match[2]) : last;
+	}
+	if (by === 'xpath') {
+		var literal = value.match(/["']([^"']+)["']/);
+		return literal ? literal[1] : value;
+	}
+	if (by === 'role') {
+		var separator = value.indexOf(':');
+		return separator < 0 ? value : value.substring(separator + 1);
+	}
+	return value;
+}
+
+function distance(a, b) {
+	if (Math.abs(a.length - b.length) > 10) {
+		return 99;
+	}
+	var previous = [];
+	for (var j = 0; j <= b.length; j++) {
+		previous.push(j);
+	}
+	for (var i = 1; i <= a.length; i++) {
+		var current = [i];
+		for (var k = 1; k <= b.length; k++) {
+			var cost = a.charAt(i - 1) === b.charAt(k - 1) ? 0 : 1;
+			current.push(Math.min(previous[k] + 1, current[k - 1] + 1, previous[k - 1] + cost));
+		}
+		previous = current;
+	}
+	return previous[b.length];
+}
+
+var needle = needleOf(by, value).toLowerCase().trim();
+var limit = Math.max(2, Math.floor(needle.length / 3));
+var scored = {};
+
+function consider(candidate, suggestion) {
+	if (!candidate) {
+		return;
+	}
+	var text = candidate.toLowerCase().trim();
+	if (!text || text.length > 80) {
+		return;
+	}
+	var score = text.indexOf(needle) >= 0 || needle.indexOf(text) >= 0 ? 0.5 : distance(needle, text);
+	if (score <= limit && (!(suggestion in scored) || scored[suggestion] > score)) {
+		scored[suggestion] = score;
+	}
+}
+
+var elements = document.querySelectorAll('*');
+var count = Math.min(elements.length, 5000);
+for (var n = 0; n < count; n++) {
+	var el = elements[n];
+	if (el.id) {
+		consider(el.id, 'id=' + el.id);
+	}
+	var name = el.getAttribute('name');
+	if (name) {
+		consider(name, 'name=' + name);
+	}
+	for (var c = 0; c < el.classList.length; c++) {
+		consider(el.classList[c], 'class=' + el.classList[c]);
+	}
+	var label = el.getAttribute('aria-label');
+	if (label) {
+		consider(label, 'css=[aria-label="' + label + '"]');
+	}
+	if (el.children.length === 0) {
+		var text = (el.textContent || '').replace(/\s+/g, ' ').trim();
+		consider(text, 'text=' + text);
+	}
+}
+
+return Object.keys(scored).sort(function (a, b) {
+	return scored[a] - scored[b];
+}).slice(0, max);